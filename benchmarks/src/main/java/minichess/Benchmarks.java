@@ -0,0 +1,38 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+import org.openjdk.jmh.profile.*;
+import org.openjdk.jmh.runner.*;
+import org.openjdk.jmh.runner.options.*;
+
+//Main class of benchmarks.jar.  Takes the usual JMH command line, and
+//always adds the allocation profiler (-prof gc): the hot paths are meant
+//not to allocate, and this shows straight away when one starts to.
+public class Benchmarks {
+
+	public static void main(String args[]) throws Exception {
+		Options options = new OptionsBuilder()
+			.parent(new CommandLineOptions(args))
+			.addProfiler(GCProfiler.class)
+			.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+
+//Move generation and the other per-node work of the search, each run once
+//over every position of the corpus per operation
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+public class MoveBenchmark {
+
+	State[] states;
+
+	//The moves of every position, generated once up front for the
+	//make/unmake benchmark
+	int[][] moves;
+
+	@Setup
+	public void setup() throws Exception {
+		states = Positions.load(1);
+		moves = new int[states.length][];
+		for(int i = 0; i < states.length; i++) {
+			int n = states[i].moveGen(states[i].moveStack[0]);
+			moves[i] = Arrays.copyOf(states[i].moveStack[0], n);
+		}
+	}
+
+	@Benchmark
+	public int moveGen() throws Exception {
+		int n = 0;
+		for(State s : states) {
+			n += s.moveGen(s.moveStack[1]);
+		}
+		return n;
+	}
+
+	@Benchmark
+	public long makeUnmake() throws Exception {
+		long hash = 0;
+		for(int i = 0; i < states.length; i++) {
+			State s = states[i];
+			for(int m : moves[i]) {
+				s.processMove(m);
+				hash ^= s.hash;
+				s.undoLastMove();
+			}
+		}
+		return hash;
+	}
+
+	@Benchmark
+	public float evaluate() throws Exception {
+		float total = 0;
+		for(State s : states) {
+			total += s.evaluate();
+		}
+		return total;
+	}
+
+	@Benchmark
+	public void getSquareNum(Blackhole bh) {
+		for(State s : states) {
+			for(int i = 0; i < State.maxPieces; i++) {
+				if(s.pieces[i] != -1) {
+					bh.consume(s.getSquareNum(s.pieces[i], 0, State.maxSquares-1));
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public void findPiece(Blackhole bh) {
+		for(State s : states) {
+			for(int sq = 0; sq < State.maxSquares; sq++) {
+				bh.consume(s.findPiece(sq));
+			}
+		}
+	}
+}
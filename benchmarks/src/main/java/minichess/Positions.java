@@ -0,0 +1,61 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+//The positions the benchmarks run over: four openings, each taken at four
+//points of a game the engine played against itself from there, so there
+//is a mix of full boards, trades in progress and thinned out endings.
+class Positions {
+
+	static final String[] LINES = {
+		"b1-c3 d5-d4 c3-b1 c5-c4 c2-c3 c6-d5",
+		"b1-c3 d5-d4 c3-b1 c5-c4 c2-c3 c6-d5 a2-a3 b6-c5 d2-d3 a5-a4 d1-d2 a6-b6 e1-d1",
+		"b1-c3 d5-d4 c3-b1 c5-c4 c2-c3 c6-d5 a2-a3 b6-c5 d2-d3 a5-a4 d1-d2 a6-b6 e1-d1 b6-c6 d1-e1 d5-e4 d3-e4 d6-e4 d2-c2 c5-d5",
+		"b1-c3 d5-d4 c3-b1 c5-c4 c2-c3 c6-d5 a2-a3 b6-c5 d2-d3 a5-a4 d1-d2 a6-b6 e1-d1 b6-c6 d1-e1 d5-e4 d3-e4 d6-e4 d2-c2 c5-d5 c1-d2 e4-c5 e1-d1 d4-d3 e2-d3 c4-d3 c2-c1",
+		"e2-e3 b5-b4 b2-b3 c5-c4 c2-c3 d5-d4",
+		"e2-e3 b5-b4 b2-b3 c5-c4 c2-c3 d5-d4 b3-c4 d4-c3 d2-d3 c6-b5 c4-b5 d6-b5 a2-a3",
+		"e2-e3 b5-b4 b2-b3 c5-c4 c2-c3 d5-d4 b3-c4 d4-c3 d2-d3 c6-b5 c4-b5 d6-b5 a2-a3 b4-a3 d1-c2 b6-c5 b1-a3 b5-a3 a1-a3 e6-c6",
+		"e2-e3 b5-b4 b2-b3 c5-c4 c2-c3 d5-d4 b3-c4 d4-c3 d2-d3 c6-b5 c4-b5 d6-b5 a2-a3 b4-a3 d1-c2 b6-c5 b1-a3 b5-a3 a1-a3 e6-c6 a3-b3 a5-a4 b3-a3 c5-b5 a3-c3 c6-c3 c2-c3",
+		"d2-d3 c5-c4 b2-b3 b5-b4 c2-c3 d5-d4",
+		"d2-d3 c5-c4 b2-b3 b5-b4 c2-c3 d5-d4 d1-c2 c6-b5 c1-d2 b6-c5 a2-a3 b4-c3 d3-c4",
+		"d2-d3 c5-c4 b2-b3 b5-b4 c2-c3 d5-d4 d1-c2 c6-b5 c1-d2 b6-c5 a2-a3 b4-c3 d3-c4 b5-c4 d2-c3 c4-b3 c2-b3 c5-c4 b3-c4 d6-c4",
+		"d2-d3 c5-c4 b2-b3 b5-b4 c2-c3 d5-d4 d1-c2 c6-b5 c1-d2 b6-c5 a2-a3 b4-c3 d3-c4 b5-c4 d2-c3 c4-b3 c2-b3 c5-c4 b3-c4 d6-c4 b1-d2 c4-d2 c3-d2 a5-a4 a1-b1 e6-b6 b1-b4",
+		"b1-c3 b5-b4 c3-b1 c5-c4 c2-c3 d5-d4",
+		"b1-c3 b5-b4 c3-b1 c5-c4 c2-c3 d5-d4 d2-d3 c6-b5 a2-a3 b4-b3 d3-c4 b5-c4 a3-a4",
+		"b1-c3 b5-b4 c3-b1 c5-c4 c2-c3 d5-d4 d2-d3 c6-b5 a2-a3 b4-b3 d3-c4 b5-c4 a3-a4 b6-c5 a1-a3 d6-e4 c1-d2 e6-c6 c3-d4 e5-d4",
+		"b1-c3 b5-b4 c3-b1 c5-c4 c2-c3 d5-d4 d2-d3 c6-b5 a2-a3 b4-b3 d3-c4 b5-c4 a3-a4 b6-c5 a1-a3 d6-e4 c1-d2 e6-c6 c3-d4 e5-d4 a3-a1 c6-e6 a1-a3 e4-d6 e2-e3 d4-e3 d2-a5"
+	};
+
+	//A State for every line, all sharing one transposition table of the
+	//given size
+	static State[] load(int hashMB) throws Exception {
+		State start = new State();
+		start.tt.resize(hashMB);
+
+		State[] states = new State[LINES.length];
+		for(int i = 0; i < LINES.length; i++) {
+			states[i] = new State(start);
+			for(String move : LINES[i].split(" ")) {
+				Perft.play(states[i], move);
+			}
+		}
+		return states;
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+
+//Fixed depth negamax over the corpus, from an empty transposition table
+//each time so every operation does the same work
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+public class SearchBenchmark {
+
+	@Param({"4", "6"})
+	int depth;
+
+	State[] states;
+
+	@Setup
+	public void setup() throws Exception {
+		states = Positions.load(1);
+	}
+
+	@Benchmark
+	public float negamax() throws Exception {
+		float total = 0;
+		for(State s : states) {
+			s.tt.clear();
+			total += s.negamax(depth, 0, -State.INFINITY, State.INFINITY);
+		}
+		return total;
+	}
+}
@@ -0,0 +1,276 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.concurrent.*;
+
+//Batch analysis: read positions from a file, search each one to a fixed
+//depth or node count, and write the results to another file in the order
+//the positions came in.
+//
+//  java minichess.Analyze <in> <out> [-depth <d>] [-nodes <n>]
+//      [-workers <n>] [-hash <MB>] [-binary]
+//
+//The input has a position per line in the notation of Position, or with
+//-binary is a file of Position.BYTES records.  Each output line is
+//
+//  <position>;<best move>;<score>;<depth>;<nodes>
+//
+//with the score as cp <n> or mate <n>, or <position>;error <message>.
+//
+//The reader hands positions to a pool of workers, each searching on a
+//State of its own, and puts the pending results on a bounded queue that
+//a writer empties in order.  When the queue is full the reader waits, so
+//however long the input only a few positions are held at once.
+class Analyze {
+
+	static final int BUFFER = 1 << 16;
+
+	SearchLimits limits = new SearchLimits(0);
+	int workers = Runtime.getRuntime().availableProcessors();
+	int hashMB = 1;
+	boolean binary = false;
+
+	ExecutorService pool;
+	BlockingQueue<Future<String>> pending;
+
+	//Each worker thread's State, with a hash table of its own
+	ThreadLocal<State> states = new ThreadLocal<State>() {
+		protected State initialValue() {
+			State s = new State();
+			s.tt.resize(hashMB);
+			return s;
+		}
+	};
+
+	public static void main(String args[]) throws Exception {
+		if(args.length < 2) {
+			System.out.println("usage: Analyze <in> <out> [-depth <d>] [-nodes <n>] [-workers <n>] [-hash <MB>] [-binary]");
+			return;
+		}
+		Analyze a = new Analyze();
+		for(int i = 2; i < args.length; i++) {
+			if(args[i].equals("-binary")) {
+				a.binary = true;
+			}
+			else if(i+1 < args.length) {
+				String v = args[++i];
+				if(args[i-1].equals("-depth")) {
+					a.limits.depth = Integer.parseInt(v);
+				}
+				else if(args[i-1].equals("-nodes")) {
+					a.limits.nodes = Long.parseLong(v);
+				}
+				else if(args[i-1].equals("-workers")) {
+					a.workers = Integer.parseInt(v);
+				}
+				else if(args[i-1].equals("-hash")) {
+					a.hashMB = Integer.parseInt(v);
+				}
+			}
+		}
+		if( (a.limits.depth == 0) && (a.limits.nodes == 0) ) {
+			a.limits.depth = 6;
+		}
+
+		long start = System.currentTimeMillis();
+		long count = a.run(Paths.get(args[0]), Paths.get(args[1]));
+		long ms = Math.max(System.currentTimeMillis()-start, 1);
+		System.out.println(count+" positions in "+ms+" ms, "+(count*1000/ms)+" positions/s");
+	}
+
+	long run(final Path in, Path out) throws Exception {
+		pool = Executors.newFixedThreadPool(workers);
+		pending = new ArrayBlockingQueue<Future<String>>(workers*4);
+
+		//The input is read on a thread of its own.  A failure to read
+		//goes down the queue like any other result, so the writer stops
+		//at it.
+		final Future<String> end = CompletableFuture.completedFuture(null);
+		Thread reader = new Thread() {
+			public void run() {
+				try(FileChannel ch = FileChannel.open(in, StandardOpenOption.READ)) {
+					if(binary) {
+						readBinary(ch);
+					}
+					else {
+						readText(ch);
+					}
+					pending.put(end);
+				}
+				catch(InterruptedException e) {
+				}
+				catch(Exception e) {
+					CompletableFuture<String> failed = new CompletableFuture<String>();
+					failed.completeExceptionally(e);
+					try {
+						pending.put(failed);
+					}
+					catch(InterruptedException ie) {
+					}
+				}
+			}
+		};
+		reader.setDaemon(true);
+		reader.start();
+
+		try {
+			return write(out, end);
+		}
+		finally {
+			reader.interrupt();
+			pool.shutdownNow();
+		}
+	}
+
+	//Split the input into lines and hand them on
+	void readText(FileChannel ch) throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER);
+		byte[] line = new byte[256];
+		int length = 0;
+		while(ch.read(buffer) != -1) {
+			buffer.flip();
+			while(buffer.hasRemaining()) {
+				byte b = buffer.get();
+				if(b == '\n') {
+					submitText(line, length);
+					length = 0;
+				}
+				else if(b != '\r') {
+					if(length == line.length) {
+						line = java.util.Arrays.copyOf(line, length*2);
+					}
+					line[length++] = b;
+				}
+			}
+			buffer.clear();
+		}
+		submitText(line, length);
+	}
+
+	void submitText(byte[] line, int length) throws InterruptedException {
+		final String text = new String(line, 0, length, StandardCharsets.US_ASCII).trim();
+		if(text.length() == 0) {
+			return;
+		}
+		pending.put(pool.submit(new Callable<String>() {
+			public String call() {
+				State s = states.get();
+				try {
+					Position.fromText(s, text);
+				}
+				catch(Exception e) {
+					return text+";error "+e.getMessage();
+				}
+				return analyse(s);
+			}
+		}));
+	}
+
+	void readBinary(FileChannel ch) throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER);
+		while(ch.read(buffer) != -1) {
+			buffer.flip();
+			while(buffer.remaining() >= Position.BYTES) {
+				final byte[] record = new byte[Position.BYTES];
+				buffer.get(record);
+				pending.put(pool.submit(new Callable<String>() {
+					public String call() {
+						State s = states.get();
+						try {
+							Position.decode(s, ByteBuffer.wrap(record));
+						}
+						catch(Exception e) {
+							return "?;error "+e.getMessage();
+						}
+						return analyse(s);
+					}
+				}));
+			}
+			buffer.compact();
+		}
+
+		//A truncated file ends in part of a record
+		if(buffer.position() > 0) {
+			String error = "?;error truncated record of "+buffer.position()+" bytes at the end of the input";
+			System.err.println(error);
+			pending.put(CompletableFuture.completedFuture(error));
+		}
+	}
+
+	//Search s with nothing kept from earlier positions, so every result
+	//depends only on its position and not on the worker that ran it
+	String analyse(State s) {
+		String position = Position.toText(s);
+		try {
+			if(Perft.gameOver(s)) {
+				return position+";0000;cp 0;0;0";
+			}
+			s.moveGen();
+			if(s.moveCount == 0) {
+				return position+";0000;cp 0;0;0";
+			}
+			s.forget();
+			int best = s.think(limits.copy());
+			return position+";"+Protocol.text(best)+";"+Protocol.score(s.bestScore)+";"+s.completedDepth+";"+s.nodes;
+		}
+		catch(Exception e) {
+			return position+";error "+e;
+		}
+	}
+
+	//Take results off the queue in order until end and write them out
+	long write(Path out, Future<String> end) throws Exception {
+		long count = 0;
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER);
+		try(FileChannel ch = FileChannel.open(out, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			Future<String> f;
+			while((f = pending.take()) != end) {
+				byte[] line = (f.get()+"\n").getBytes(StandardCharsets.US_ASCII);
+				if(buffer.remaining() < line.length) {
+					flush(ch, buffer);
+				}
+				if(line.length > buffer.capacity()) {
+					ch.write(ByteBuffer.wrap(line));
+				}
+				else {
+					buffer.put(line);
+				}
+				count++;
+			}
+			flush(ch, buffer);
+		}
+		return count;
+	}
+
+	static void flush(FileChannel ch, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining()) {
+			ch.write(buffer);
+		}
+		buffer.clear();
+	}
+}
@@ -0,0 +1,36 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+import jdk.jfr.*;
+
+//A Flight Recorder event, like SearchStartedEvent
+@Name("minichess.HashResize")
+@Label("Hash Resize")
+@Description("The transposition table being allocated, at the first store after it was created or resized")
+@Category("MiniChess")
+class HashResizeEvent extends Event {
+	@Label("Size")
+	@DataAmount
+	long bytes;
+
+	@Label("Entries")
+	long entries;
+}
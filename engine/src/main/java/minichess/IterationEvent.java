@@ -0,0 +1,41 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+import jdk.jfr.*;
+
+//A Flight Recorder event, like SearchStartedEvent
+@Name("minichess.Iteration")
+@Label("Iteration Completed")
+@Description("One finished iteration of iterative deepening on the main search thread")
+@Category("MiniChess")
+class IterationEvent extends Event {
+	@Label("Depth")
+	int depth;
+
+	@Label("Score")
+	float score;
+
+	@Label("Nodes")
+	long nodes;
+
+	@Label("Best Move")
+	String move;
+}
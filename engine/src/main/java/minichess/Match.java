@@ -0,0 +1,442 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+//Headless engine against engine matches, to measure whether a change is
+//an improvement.  Each of the two sides, A and B, is either this engine,
+//run in process with options of its own, or an engine command spoken to
+//over the protocol of Protocol, e.g. a build from before the change:
+//
+//  -engineB "java -cp old.jar minichess.MiniChess -uci"
+//
+//Games are played in pairs from the same random opening, A taking white
+//in one and black in the other, on a pool of workers that each run both
+//sides (and start their own engine processes).  A sequential probability
+//ratio test stops the match as soon as the result is clear.
+//
+//  java minichess.Match [-games <n>] [-workers <n>] [-seed <n>]
+//      [-openings <plies>]
+//      [-engine <command>] [-hash <MB>] [-threads <n>]     side A
+//      [-nodes <n>] [-depth <d>] [-movetime <ms>]
+//      [-engineB <command>] [-hashB <MB>] [-threadsB <n>]  side B
+//      [-nodesB <n>] [-depthB <d>] [-movetimeB <ms>]
+//      [-elo0 <e>] [-elo1 <e>] [-alpha <a>] [-beta <b>]    the SPRT
+//
+//B has the same limits, hash and threads as A unless they are given.
+//The SPRT tests H0: A is elo0 stronger than B, against H1: A is elo1
+//stronger.
+class Match {
+
+	int games = 1000;
+	int workers = Runtime.getRuntime().availableProcessors();
+	long seed = 1;
+	int openingPlies = 4;
+	String engineA = null;
+	String engineB = null;
+	int hashA = 1;
+	int hashB = 0;
+	int threadsA = 1;
+	int threadsB = 0;
+	SearchLimits limitsA = new SearchLimits(0);
+	SearchLimits limitsB = null;
+	double elo0 = 0;
+	double elo1 = 10;
+	double alpha = 0.05;
+	double beta = 0.05;
+
+	//Results from A's side
+	int wins = 0;
+	int draws = 0;
+	int losses = 0;
+
+	//Set once the SPRT has decided, or every game is done
+	volatile boolean finished = false;
+	String verdict = "inconclusive";
+
+	AtomicInteger nextGame = new AtomicInteger();
+	long startTime;
+
+	public static void main(String args[]) throws Exception {
+		Match m = new Match();
+		SearchLimits b = new SearchLimits(0);
+		for(int i = 0; i+1 < args.length; i += 2) {
+			String v = args[i+1];
+			if(args[i].equals("-games")) {
+				m.games = Integer.parseInt(v);
+			}
+			else if(args[i].equals("-workers")) {
+				m.workers = Integer.parseInt(v);
+			}
+			else if(args[i].equals("-seed")) {
+				m.seed = Long.parseLong(v);
+			}
+			else if(args[i].equals("-engine")) {
+				m.engineA = v;
+			}
+			else if(args[i].equals("-engineB")) {
+				m.engineB = v;
+			}
+			else if(args[i].equals("-hash")) {
+				m.hashA = Integer.parseInt(v);
+			}
+			else if(args[i].equals("-hashB")) {
+				m.hashB = Integer.parseInt(v);
+			}
+			else if(args[i].equals("-threads")) {
+				m.threadsA = Integer.parseInt(v);
+			}
+			else if(args[i].equals("-threadsB")) {
+				m.threadsB = Integer.parseInt(v);
+			}
+			else if(args[i].equals("-openings")) {
+				m.openingPlies = Integer.parseInt(v);
+			}
+			else if(args[i].equals("-nodes")) {
+				m.limitsA.nodes = Long.parseLong(v);
+			}
+			else if(args[i].equals("-depth")) {
+				m.limitsA.depth = Integer.parseInt(v);
+			}
+			else if(args[i].equals("-movetime")) {
+				m.limitsA.movetime = Long.parseLong(v);
+			}
+			else if(args[i].equals("-nodesB")) {
+				b.nodes = Long.parseLong(v);
+				m.limitsB = b;
+			}
+			else if(args[i].equals("-depthB")) {
+				b.depth = Integer.parseInt(v);
+				m.limitsB = b;
+			}
+			else if(args[i].equals("-movetimeB")) {
+				b.movetime = Long.parseLong(v);
+				m.limitsB = b;
+			}
+			else if(args[i].equals("-elo0")) {
+				m.elo0 = Double.parseDouble(v);
+			}
+			else if(args[i].equals("-elo1")) {
+				m.elo1 = Double.parseDouble(v);
+			}
+			else if(args[i].equals("-alpha")) {
+				m.alpha = Double.parseDouble(v);
+			}
+			else if(args[i].equals("-beta")) {
+				m.beta = Double.parseDouble(v);
+			}
+		}
+
+		//Fixed node counts by default: fast, and the same on any machine
+		if( (m.limitsA.nodes == 0) && (m.limitsA.depth == 0) && (m.limitsA.movetime == 0) ) {
+			m.limitsA.nodes = 2000;
+		}
+		if(m.limitsB == null) {
+			m.limitsB = m.limitsA;
+		}
+		if(m.hashB == 0) {
+			m.hashB = m.hashA;
+		}
+		if(m.threadsB == 0) {
+			m.threadsB = m.threadsA;
+		}
+
+		m.run();
+	}
+
+	void run() throws Exception {
+		startTime = System.currentTimeMillis();
+		ExecutorService pool = Executors.newFixedThreadPool(workers);
+		List<Future<?>> tasks = new ArrayList<Future<?>>();
+		for(int i = 0; i < workers; i++) {
+			tasks.add(pool.submit(new Callable<Object>() {
+				public Object call() throws Exception {
+					work();
+					return null;
+				}
+			}));
+		}
+		for(Future<?> f : tasks) {
+			f.get();
+		}
+		pool.shutdown();
+
+		synchronized(this) {
+			System.out.println(progress());
+			System.out.println(verdict);
+		}
+	}
+
+	//Play games until there are none left or the test has decided
+	void work() throws Exception {
+		State game = new State();
+		Player a = player(engineA, hashA, threadsA);
+		Player b = null;
+		try {
+			b = player(engineB, hashB, threadsB);
+			int g;
+			while( !finished && ((g = nextGame.getAndIncrement()) < games) ) {
+				int result = play(game, a, b, g);
+				record(result);
+			}
+		}
+		finally {
+			a.close();
+			if(b != null) {
+				b.close();
+			}
+		}
+	}
+
+	static Player player(String command, int hashMB, int threads) throws Exception {
+		if(command == null) {
+			return new Engine(hashMB, threads);
+		}
+		return new External(command, hashMB, threads);
+	}
+
+	//Play game g and return its result for A: 1 win, 0 draw, -1 loss.
+	//Both games of a pair start from the same opening, with A white in
+	//the even one.  game keeps the position for the rules; the players
+	//follow it move by move.
+	int play(State game, Player a, Player b, int g) throws Exception {
+		boolean aWhite = (g % 2) == 0;
+		Player white = aWhite ? a : b;
+		Player black = aWhite ? b : a;
+		SearchLimits whiteLimits = aWhite ? limitsA : limitsB;
+		SearchLimits blackLimits = aWhite ? limitsB : limitsA;
+
+		game.newGame();
+		a.newGame();
+		b.newGame();
+
+		Random rng = new Random((seed*1000003)+(g/2));
+		for(int p = 0; p < openingPlies; p++) {
+			int n = game.moveGen(game.moveStack[0]);
+			if(n == 0) {
+				break;
+			}
+			int m = game.moveStack[0][rng.nextInt(n)];
+			game.processMove(m);
+			a.played(m);
+			b.played(m);
+		}
+
+		while(true) {
+			Player mover = game.turn ? white : black;
+
+			//A captured king loses, and too many moves is a draw
+			if(game.pieces[game.turn ? State.WKING : State.BKING] == -1) {
+				return (mover == a) ? -1 : 1;
+			}
+			if(game.movecounter > 40) {
+				return 0;
+			}
+			if(game.moveGen(game.moveStack[0]) == 0) {
+				return 0;
+			}
+
+			int m = mover.move(game, game.turn ? whiteLimits : blackLimits);
+			game.processMove(m);
+			a.played(m);
+			b.played(m);
+		}
+	}
+
+	//One side of the match
+	abstract static class Player {
+
+		abstract void newGame() throws Exception;
+
+		//A move was played, by either side
+		abstract void played(int m) throws Exception;
+
+		//Choose a legal move in game, which the player has followed
+		abstract int move(State game, SearchLimits l) throws Exception;
+
+		void close() throws Exception {
+		}
+	}
+
+	//This engine, searching on a State and hash table of its own
+	static class Engine extends Player {
+		State s = new State();
+
+		Engine(int hashMB, int threads) {
+			s.tt.resize(hashMB);
+			s.threads = threads;
+		}
+
+		void newGame() {
+			s.newGame();
+			s.tt.clear();
+		}
+
+		void played(int m) throws Exception {
+			s.processMove(m);
+		}
+
+		int move(State game, SearchLimits l) throws Exception {
+			s.moveGen();
+			return s.think(l.copy());
+		}
+	}
+
+	//An engine process driven over the protocol.  It is sent the whole
+	//game before every go.
+	static class External extends Player {
+		String command;
+		Process process;
+		BufferedReader in;
+		PrintStream out;
+		StringBuilder position;
+
+		External(String command, int hashMB, int threads) throws Exception {
+			this.command = command;
+			process = new ProcessBuilder(command.trim().split("\\s+"))
+				.redirectError(ProcessBuilder.Redirect.INHERIT).start();
+			in = new BufferedReader(new InputStreamReader(process.getInputStream()));
+			out = new PrintStream(process.getOutputStream(), true);
+			send("uci");
+			expect("uciok");
+			send("setoption name Hash value "+hashMB);
+			send("setoption name Threads value "+threads);
+			send("isready");
+			expect("readyok");
+		}
+
+		void send(String line) {
+			out.println(line);
+		}
+
+		//Read up to the line starting with prefix and return it
+		String expect(String prefix) throws Exception {
+			String line;
+			while((line = in.readLine()) != null) {
+				if(line.startsWith(prefix)) {
+					return line;
+				}
+			}
+			throw new Exception("engine exited: "+command);
+		}
+
+		void newGame() {
+			send("ucinewgame");
+			position = new StringBuilder("position startpos moves");
+		}
+
+		void played(int m) {
+			position.append(' ').append(Protocol.text(m));
+		}
+
+		int move(State game, SearchLimits l) throws Exception {
+			StringBuilder go = new StringBuilder("go");
+			if(l.depth > 0) {
+				go.append(" depth ").append(l.depth);
+			}
+			if(l.nodes > 0) {
+				go.append(" nodes ").append(l.nodes);
+			}
+			if(l.movetime > 0) {
+				go.append(" movetime ").append(l.movetime);
+			}
+			send(position.toString());
+			send(go.toString());
+			String[] words = expect("bestmove").split("\\s+");
+			int m = (words.length > 1) ? game.parseMove(words[1]) : 0;
+			if(m == 0) {
+				throw new Exception("illegal move from "+command+": "+String.join(" ", words));
+			}
+			return m;
+		}
+
+		void close() throws Exception {
+			send("quit");
+			if(!process.waitFor(5, TimeUnit.SECONDS)) {
+				process.destroy();
+			}
+		}
+	}
+
+	synchronized void record(int result) {
+		if(finished) {
+			return;
+		}
+		if(result > 0) {
+			wins++;
+		}
+		else if(result < 0) {
+			losses++;
+		}
+		else {
+			draws++;
+		}
+
+		int n = wins+draws+losses;
+		double llr = llr();
+		if(llr >= Math.log((1-beta)/alpha)) {
+			verdict = "H1 accepted: A is stronger by at least "+elo1+" Elo";
+			finished = true;
+		}
+		else if(llr <= Math.log(beta/(1-alpha))) {
+			verdict = "H0 accepted: A is not stronger by "+elo1+" Elo";
+			finished = true;
+		}
+		else if(n >= games) {
+			finished = true;
+		}
+
+		if( (n % 100 == 0) && !finished ) {
+			System.out.println(progress());
+		}
+	}
+
+	//Log likelihood ratio of H1 to H0 for the results so far, using the
+	//normal approximation to the trinomial distribution of results
+	double llr() {
+		int n = wins+draws+losses;
+		if( (n == 0) || (wins == n) || (losses == n) || (draws == n) ) {
+			return 0;
+		}
+		double score = (wins+(draws/2.0))/n;
+		double variance = ((wins*Math.pow(1-score, 2))+(draws*Math.pow(0.5-score, 2))+(losses*Math.pow(score, 2)))/n;
+		double s0 = expectedScore(elo0);
+		double s1 = expectedScore(elo1);
+		return n*(s1-s0)*((2*score)-s0-s1)/(2*variance);
+	}
+
+	static double expectedScore(double elo) {
+		return 1/(1+Math.pow(10, -elo/400));
+	}
+
+	String progress() {
+		int n = wins+draws+losses;
+		double score = (n == 0) ? 0.5 : (wins+(draws/2.0))/n;
+		double elo = ( (score <= 0) || (score >= 1) ) ? 0 : -400*Math.log10((1/score)-1);
+		double seconds = Math.max(System.currentTimeMillis()-startTime, 1)/1000.0;
+		return String.format("games %d W/D/L %d/%d/%d score %.1f%% elo %+.1f LLR %.2f [%.2f, %.2f] %.1f games/s",
+			n, wins, draws, losses, score*100, elo, llr(),
+			Math.log(beta/(1-alpha)), Math.log((1-beta)/alpha), n/seconds);
+	}
+}
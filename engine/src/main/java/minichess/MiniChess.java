@@ -0,0 +1,138 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+import java.util.concurrent.*;
+
+class MiniChess {
+
+	//The game state
+	static State currentState = new State();
+
+	public static void main(String args[]) throws Exception {
+
+		//MiniChess -uci [settings] speaks the engine protocol on stdin and
+		//stdout instead of playing a game at the console (see Protocol)
+		boolean protocol = (args.length > 0) && args[0].equals("-uci");
+
+		//Optional settings, e.g. MiniChess -hash 64 -movetime 500
+		//  -hash <MB>         transposition table size
+		//  -movetime <ms>     time for each engine move
+		//  -nodes <n>         node budget for each engine move
+		//  -depth <plies>     depth limit for each engine move
+		//  -threads <n>       search threads (Lazy SMP)
+		//  -rootsplit <n>     split fixed depth searches over the root
+		//                     moves on n threads instead
+		//  -metrics <s>       print the search metrics every s seconds
+		//  -ponder on         think on the opponent's time
+		//  -book <file>       play from an opening book (see OpeningBook)
+		//  -tb <dir>          use the endgame tablebases in dir (see
+		//                     Tablebase)
+		//A time or node budget replaces the default depth unless a depth
+		//is given as well.
+		SearchLimits limits = new SearchLimits(0);
+		boolean ponder = false;
+		for(int i = protocol ? 1 : 0; i+1 < args.length; i += 2) {
+			if(args[i].equals("-hash")) {
+				currentState.tt.resize(Integer.parseInt(args[i+1]));
+			}
+			else if(args[i].equals("-movetime")) {
+				limits.movetime = Long.parseLong(args[i+1]);
+			}
+			else if(args[i].equals("-nodes")) {
+				limits.nodes = Long.parseLong(args[i+1]);
+			}
+			else if(args[i].equals("-depth")) {
+				limits.depth = Integer.parseInt(args[i+1]);
+			}
+			else if(args[i].equals("-threads")) {
+				currentState.threads = Integer.parseInt(args[i+1]);
+			}
+			else if(args[i].equals("-rootsplit")) {
+				currentState.rootPool = new ForkJoinPool(Integer.parseInt(args[i+1]));
+			}
+			else if(args[i].equals("-tb")) {
+				currentState.tablebase = Tablebase.open(args[i+1]);
+			}
+			else if(args[i].equals("-book")) {
+				currentState.book = OpeningBook.open(args[i+1]);
+			}
+			else if(args[i].equals("-ponder")) {
+				ponder = args[i+1].equals("on");
+			}
+			else if(args[i].equals("-metrics")) {
+				SearchMetrics.global.startReporting(Long.parseLong(args[i+1]), System.err);
+			}
+		}
+		if( (limits.movetime > 0) || (limits.nodes > 0) || (limits.depth > 0) ) {
+			currentState.moveLimits = limits;
+		}
+
+		//The search metrics can be watched over JMX, e.g. with jconsole
+		SearchMetrics.register();
+
+		if(protocol) {
+			new Protocol(currentState, System.in, System.out).run();
+			return;
+		}
+
+		//Setup and Update the board before starting the game
+		currentState.setupBoard();
+		currentState.updateBoard();
+		currentState.printBoard();
+
+		//Main game loop
+		while(!currentState.gameOver()) {
+
+			if(currentState.turn) {
+				currentState.moveGen();
+				currentState.makeMove();
+			}
+			else {
+				if(ponder) {
+					currentState.startPondering();
+				}
+				currentState.humanMove();
+			}
+
+			currentState.updateBoard();
+
+			currentState.printBoard();
+
+		}
+
+
+		//Both kings still on the board means the move limit ended it
+		if( (currentState.pieces[State.WKING] != -1) && (currentState.pieces[State.BKING] != -1) ) {
+			System.out.println("Draw");
+			return;
+		}
+
+		System.out.print("Victory for ");
+		if(currentState.turn) {
+			System.out.println("Black");
+		}
+		else {
+			System.out.println("White");
+		}
+
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+class Move {
+	//Moves are passed around the engine as packed ints:
+	//  bits  0-4   from square 0-29
+	//  bits  5-9   to square 0-29
+	//  bits 10-14  slot of the moving piece
+	//  bits 15-19  slot of the captured piece, or NO_PIECE
+	//  bit  20     set when a pawn promotes
+	//The object form is only used at the console.
+	static final int NO_PIECE = 31;
+	static final int PROMOTION = 1 << 20;
+
+	Square fromSquare;
+	Square toSquare;
+
+	Move(Square one, Square two) {
+		fromSquare = one;
+		toSquare = two;
+	}
+
+	Move(int packed) {
+		this(new Square(from(packed)), new Square(to(packed)));
+	}
+
+	static int pack(int from, int to, int piece, int captured, boolean promotion) {
+		if(captured == -1) {
+			captured = NO_PIECE;
+		}
+		return from | (to << 5) | (piece << 10) | (captured << 15) | (promotion ? PROMOTION : 0);
+	}
+
+	static int from(int move) {
+		return move & 31;
+	}
+
+	static int to(int move) {
+		return (move >>> 5) & 31;
+	}
+
+	static int piece(int move) {
+		return (move >>> 10) & 31;
+	}
+
+	//The captured slot, or -1 when nothing is captured
+	static int captured(int move) {
+		int c = (move >>> 15) & 31;
+		return (c == NO_PIECE) ? -1 : c;
+	}
+
+	static boolean isPromotion(int move) {
+		return (move & PROMOTION) != 0;
+	}
+
+	public String toString() {
+		return ""+fromSquare.x+fromSquare.y+"-"+toSquare.x+toSquare.y;
+	}
+
+}
@@ -0,0 +1,272 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+
+//Opening book: a file of (hash, move, weight) entries sorted by hash,
+//mapped into memory read only and searched by bisection.  Mapped pages
+//are the operating system's, so any number of engines on the machine can
+//share one book.
+//
+//The file is a 16 byte header (magic, version, entry count) followed by
+//16 byte entries: the position hash, the move as from | to << 5, and a
+//weight.  A position can have several entries, in which case one is
+//picked at random in proportion to the weights.
+//
+//  java minichess.OpeningBook <file> [-plies <n>] [-depth <d>]
+//
+//builds a book by searching every position up to the given number of
+//plies from the start to the given depth.  Every move that scores within
+//MARGIN of the best gets an entry, weighted by how close it comes, so the
+//engine does not always play the same opening.
+class OpeningBook {
+
+	static final int MAGIC = 0x4D43424B;	//"MCBK"
+	static final int VERSION = 1;
+	static final int HEADER = 16;
+	static final int ENTRY = 16;
+
+	//Most entries one position can have, and how far below the best
+	//score (a quarter of a pawn, see evaluate()) a move may be and still
+	//go in the book
+	static final int MAX_MOVES = 8;
+	static final float MARGIN = 1/96.0f;
+
+	private final ByteBuffer entries;
+	private final int count;
+
+	OpeningBook(ByteBuffer buffer) throws IOException {
+		if( (buffer.capacity() < HEADER) || (buffer.getInt(0) != MAGIC) || (buffer.getInt(4) != VERSION) ) {
+			throw new IOException("not an opening book");
+		}
+		long n = buffer.getLong(8);
+		if( (n < 0) || (HEADER+(n*ENTRY) != buffer.capacity()) ) {
+			throw new IOException("opening book truncated or corrupt: "+n+" entries in "+buffer.capacity()+" bytes");
+		}
+		count = (int)n;
+		entries = buffer;
+	}
+
+	static OpeningBook open(String file) throws IOException {
+		try(FileChannel ch = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+			return new OpeningBook(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+		}
+	}
+
+	int size() {
+		return count;
+	}
+
+	private long hashAt(int i) {
+		return entries.getLong(HEADER+(i*ENTRY));
+	}
+
+	//A book move for s, chosen with s.rng, or 0 if the position is not in
+	//the book.  Only legal moves are returned, so a hash collision cannot
+	//do any harm.  Overwrites the root move list of s.
+	int probe(State s) throws Exception {
+
+		//First entry with a hash not below s.hash
+		int lo = 0;
+		int hi = count;
+		while(lo < hi) {
+			int mid = (lo+hi) >>> 1;
+			if(hashAt(mid) < s.hash) {
+				lo = mid+1;
+			}
+			else {
+				hi = mid;
+			}
+		}
+
+		int[] list = s.moveStack[0];
+		int n = s.moveGen(list);
+		int[] found = new int[MAX_MOVES];
+		int[] weights = new int[MAX_MOVES];
+		int k = 0;
+		int total = 0;
+		for(int i = lo; (i < count) && (hashAt(i) == s.hash) && (k < found.length); i++) {
+			int at = HEADER+(i*ENTRY);
+			int fromTo = entries.getInt(at+8);
+			int weight = entries.getInt(at+12);
+			for(int j = 0; j < n; j++) {
+				if( (weight > 0) && ((list[j] & 1023) == fromTo) ) {
+					found[k] = list[j];
+					weights[k] = weight;
+					total += weight;
+					k++;
+					break;
+				}
+			}
+		}
+		if(k == 0) {
+			return 0;
+		}
+
+		int r = s.rng.nextInt(total);
+		for(int i = 0; i < k; i++) {
+			r -= weights[i];
+			if(r < 0) {
+				return found[i];
+			}
+		}
+		return found[k-1];
+	}
+
+	public static void main(String args[]) throws Exception {
+		if(args.length < 1) {
+			System.out.println("usage: OpeningBook <file> [-plies <n>] [-depth <d>]");
+			return;
+		}
+		int plies = 4;
+		int depth = 7;
+		for(int i = 1; i+1 < args.length; i += 2) {
+			if(args[i].equals("-plies")) {
+				plies = Integer.parseInt(args[i+1]);
+			}
+			else if(args[i].equals("-depth")) {
+				depth = Integer.parseInt(args[i+1]);
+			}
+		}
+
+		long start = System.currentTimeMillis();
+		Map<Long, int[]> book = new HashMap<Long, int[]>();
+		State s = new State();
+		explore(s, plies, depth, book);
+		write(args[0], book);
+		System.out.println(book.size()+" positions in "+(System.currentTimeMillis()-start)+" ms");
+	}
+
+	//Search every position up to plies moves deep and keep its best moves.
+	//Every reply is followed, as the book has to know what to do whatever
+	//the opponent plays.
+	static void explore(State s, int plies, int depth, Map<Long, int[]> book) throws Exception {
+		if( (plies == 0) || (s.pieces[State.WKING] == -1) || (s.pieces[State.BKING] == -1) ) {
+			return;
+		}
+		if(!book.containsKey(s.hash)) {
+			int[] entries = bookMoves(s, depth);
+			if(entries.length == 0) {
+				return;
+			}
+			book.put(s.hash, entries);
+		}
+
+		int ply = s.undoCount;
+		int[] list = s.moveStack[ply];
+		int n = s.moveGen(list);
+		for(int i = 0; i < n; i++) {
+			s.processMove(list[i]);
+			explore(s, plies-1, depth, book);
+			s.undoLastMove();
+		}
+	}
+
+	//Score every move of s with a search of its own and return the ones
+	//within MARGIN of the best, best first, as pairs of the move's from |
+	//to << 5 and its weight: 100 for the best, down to 1 at the margin
+	static int[] bookMoves(State s, int depth) throws Exception {
+		//The searches use the move lists of every ply, so they get a copy
+		//of their own; the copy shares the hash table
+		State searcher = new State(s);
+		int[] list = new int[State.maxMoves];
+		int n = searcher.moveGen(list);
+		float[] scores = new float[n];
+		float best = -State.INFINITY;
+		for(int i = 0; i < n; i++) {
+			int captured = Move.captured(list[i]);
+			if( (captured != -1) && (State.typeOf[captured] == State.KING) ) {
+				scores[i] = State.WIN;
+			}
+			else {
+				searcher.processMove(list[i]);
+				searcher.moveGen();
+				scores[i] = 0;
+				if(searcher.moveCount > 0) {
+					searcher.think(new SearchLimits(Math.max(depth-1, 1)));
+					scores[i] = -searcher.bestScore;
+				}
+				searcher.undoLastMove();
+			}
+			best = Math.max(best, scores[i]);
+		}
+
+		//Best first, so the closest moves are kept when there are too many
+		Integer[] order = new Integer[n];
+		for(int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		final float[] by = scores;
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer x, Integer y) {
+				return Float.compare(by[y], by[x]);
+			}
+		});
+
+		int[] entries = new int[2*MAX_MOVES];
+		int k = 0;
+		for(int i = 0; (i < n) && (k < MAX_MOVES); i++) {
+			float behind = best-scores[order[i]];
+			if(behind > MARGIN) {
+				break;
+			}
+			entries[2*k] = list[order[i]] & 1023;
+			entries[(2*k)+1] = 1+Math.round(99*(MARGIN-behind)/MARGIN);
+			k++;
+		}
+		return Arrays.copyOf(entries, 2*k);
+	}
+
+	static void write(String file, Map<Long, int[]> book) throws IOException {
+		long[] hashes = new long[book.size()];
+		int i = 0;
+		int count = 0;
+		for(Map.Entry<Long, int[]> e : book.entrySet()) {
+			hashes[i++] = e.getKey();
+			count += e.getValue().length/2;
+		}
+		Arrays.sort(hashes);
+
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER+(count*ENTRY));
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putLong(count);
+		for(long h : hashes) {
+			int[] entries = book.get(h);
+			for(int j = 0; j < entries.length; j += 2) {
+				buffer.putLong(h);
+				buffer.putInt(entries[j]);
+				buffer.putInt(entries[j+1]);
+			}
+		}
+		buffer.flip();
+		try(FileChannel ch = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while(buffer.hasRemaining()) {
+				ch.write(buffer);
+			}
+		}
+	}
+}
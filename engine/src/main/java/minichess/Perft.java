@@ -0,0 +1,221 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+//Perft: counts the leaf nodes of the full move tree to a fixed depth, to
+//check the move generator against known counts and to time moveGen(),
+//processMove() and undoLastMove() on their own, without any search.
+//
+//  java minichess.Perft [-divide] [-hash <MB>] [-threads <n>] [-fen <position>]
+//      <depth> [move ...]
+//
+//The moves, e.g. b2-b3 b5-b4, are played from the starting position, or
+//the one given in the notation of Position, first.
+//-divide prints the count below each root move, -hash keeps the count of
+//every subtree in a table so transpositions are only counted once, and
+//-threads shares the root moves out over a pool of threads.
+class Perft {
+
+	public static void main(String args[]) throws Exception {
+
+		boolean divide = false;
+		int hashMB = 0;
+		int threads = 1;
+		int depth = -1;
+		State s = new State();
+
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-divide")) {
+				divide = true;
+			}
+			else if(args[i].equals("-hash")) {
+				hashMB = Integer.parseInt(args[++i]);
+			}
+			else if(args[i].equals("-threads")) {
+				threads = Integer.parseInt(args[++i]);
+			}
+			else if(args[i].equals("-fen")) {
+				Position.fromText(s, args[++i]);
+			}
+			else if(depth < 0) {
+				depth = Integer.parseInt(args[i]);
+			}
+			else {
+				play(s, args[i]);
+			}
+		}
+		if(depth < 0) {
+			System.out.println("usage: Perft [-divide] [-hash <MB>] [-threads <n>] [-fen <position>] <depth> [move ...]");
+			return;
+		}
+
+		Table table = (hashMB > 0) ? new Table(hashMB) : null;
+		long start = System.nanoTime();
+		long[] counts = divide(s, depth, table, threads);
+		long elapsed = System.nanoTime()-start;
+
+		long total = 0;
+		int[] moves = s.moveStack[0];
+		for(int i = 0; i < counts.length; i++) {
+			if(divide) {
+				System.out.println(new Move(moves[i])+" "+counts[i]);
+			}
+			total += counts[i];
+		}
+		if(depth == 0) {
+			total = 1;
+		}
+
+		long ms = Math.max(1, elapsed/1000000);
+		System.out.println("Nodes: "+total+" Time: "+ms+" ms NPS: "+(total*1000/ms));
+	}
+
+	//Play a move given as text, e.g. b2-b3 or b2b3, if it is legal in s
+	static void play(State s, String text) throws Exception {
+		int m = s.parseMove(text);
+		if(m == 0) {
+			throw new Exception("illegal move "+text);
+		}
+		s.processMove(m);
+	}
+
+	//Count the leaves below each root move of s.  The root moves are left
+	//in s.moveStack[0] in generation order, matching the counts.
+	static long[] divide(final State s, final int depth, final Table table, int threads) throws Exception {
+
+		if((depth == 0) || gameOver(s)) {
+			return new long[0];
+		}
+
+		final int[] moves = s.moveStack[0];
+		final int n = s.moveGen(moves);
+		long[] counts = new long[n];
+
+		if(threads <= 1) {
+			for(int i = 0; i < n; i++) {
+				s.processMove(moves[i]);
+				counts[i] = perft(s, depth-1, 1, table);
+				s.undoLastMove();
+			}
+			return counts;
+		}
+
+		//Every root move gets its own copy of the position
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Long>> results = new ArrayList<Future<Long>>();
+			for(int i = 0; i < n; i++) {
+				final int move = moves[i];
+				results.add(pool.submit(new Callable<Long>() {
+					public Long call() throws Exception {
+						State copy = new State(s);
+						copy.processMove(move);
+						return perft(copy, depth-1, 1, table);
+					}
+				}));
+			}
+			for(int i = 0; i < n; i++) {
+				counts[i] = results.get(i).get();
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+		return counts;
+	}
+
+	//Leaves below s to the given depth.  Each ply generates into its own
+	//row of moveStack, so nothing is allocated on the way.
+	static long perft(State s, int depth, int ply, Table table) throws Exception {
+
+		if(depth == 0) {
+			return 1;
+		}
+		if(gameOver(s)) {
+			return 0;
+		}
+
+		if(table != null) {
+			long count = table.probe(s.hash, depth);
+			if(count >= 0) {
+				return count;
+			}
+		}
+
+		int[] moves = s.moveStack[ply];
+		int n = s.moveGen(moves);
+		long count = 0;
+		for(int i = 0; i < n; i++) {
+			s.processMove(moves[i]);
+			count += perft(s, depth-1, ply+1, table);
+			s.undoLastMove();
+		}
+
+		if(table != null) {
+			table.store(s.hash, depth, count);
+		}
+		return count;
+	}
+
+	//The game ends when a king is captured, so nothing is played after it
+	static boolean gameOver(State s) {
+		return (s.pieces[State.WKING] == -1) || (s.pieces[State.BKING] == -1);
+	}
+
+	//Subtree counts by hash and depth.  Like the transposition table each
+	//entry is stored as (key ^ count, count) so that threads can share it
+	//without locking: an entry torn by two writers no longer matches.
+	static class Table {
+
+		private final long[] entries;
+		private final int mask;
+
+		Table(int mb) {
+			int size = Integer.highestOneBit((int)Math.max(1, (mb*(1L << 20))/16));
+			entries = new long[size*2];
+			mask = size-1;
+		}
+
+		private static long key(long hash, int depth) {
+			return hash+(depth*0x9E3779B97F4A7C15L);
+		}
+
+		//The stored count, or -1 if there is none
+		long probe(long hash, int depth) {
+			long key = key(hash, depth);
+			int i = ((int)key & mask)*2;
+			long count = entries[i+1];
+			if((entries[i] ^ count) == key) {
+				return count;
+			}
+			return -1;
+		}
+
+		void store(long hash, int depth, long count) {
+			long key = key(hash, depth);
+			int i = ((int)key & mask)*2;
+			entries[i] = key ^ count;
+			entries[i+1] = count;
+		}
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+//A search of the position after the opponent's expected reply, run on a
+//copy of the game while the opponent thinks.  It shares the hash table,
+//so even when the reply is not the one played its work is not all lost.
+class Ponder implements Runnable {
+	State state;
+	int reply;
+	SearchLimits limits = new SearchLimits(0);
+	Thread thread;
+	int best = 0;
+
+	Ponder(State s, int r) throws Exception {
+		state = new State(s);
+		state.threads = s.threads;
+		state.helper = true;
+		reply = r;
+		state.processMove(reply);
+		limits.infinite = true;
+		thread = new Thread(this, "ponder");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public void run() {
+		try {
+			state.moveGen();
+			if(state.moveCount > 0) {
+				best = state.think(limits);
+			}
+		}
+		catch(Exception e) {
+			best = 0;
+		}
+	}
+
+	//The reply was played: finish the search under the budget and return
+	//its move, with the score, depth and nodes copied to s
+	int hit(SearchLimits budget, State s) throws Exception {
+		limits.ponderHit(budget);
+		thread.join();
+		if(best == 0) {
+			return s.think(budget.copy());
+		}
+		s.bestScore = state.bestScore;
+		s.completedDepth = state.completedDepth;
+		s.nodes = state.nodes;
+		return best;
+	}
+
+	void cancel() throws InterruptedException {
+		limits.stop = true;
+		thread.join();
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+import java.nio.*;
+import java.util.*;
+
+//Reading and writing positions, as text or as 16 bytes.
+//
+//The text form is like FEN: the ranks from 6 down to 1 separated by '/',
+//white pieces KQBNRP in capitals and black ones in lower case, a digit for
+//a run of empty squares, then w or b for the side to move and the move
+//counter, 0 to MAX_MOVECOUNTER.  The start position is
+//
+//  kqbnr/ppppp/5/5/PPPPP/RNBQK w 0
+//
+//The binary form is two big-endian longs.  Each square takes four bits,
+//0 for empty, 1-6 for a white KQBNRP and 9-14 for a black one: squares
+//0-15 fill the first long from the low bits up and squares 16-29 the low
+//56 bits of the second.  Bit 56 of the second is set when black is to
+//move and bits 57-63 hold the move counter.
+class Position {
+
+	static final int BYTES = 16;
+
+	//The largest move counter the binary form has room for.  The game is
+	//over long before it, at 40.
+	static final int MAX_MOVECOUNTER = 127;
+
+	static final String LETTERS = "KQBNRP";
+
+	//The pieces by square, as the four bit codes above
+	static int[] codes(State s) {
+		int[] codes = new int[State.maxSquares];
+		for(int sq = 0; sq < State.maxSquares; sq++) {
+			int slot = s.squares[sq];
+			if(slot != -1) {
+				codes[sq] = (State.typeOf[slot]+1) | ((slot < State.BKING) ? 0 : 8);
+			}
+		}
+		return codes;
+	}
+
+	//Set s up from pieces by square, giving each piece the first free slot
+	//of its type; extra queens go to the spare queen slots.  s is only
+	//changed once the whole position has been checked.
+	static void load(State s, int[] codes, boolean whiteToMove, int movecounter) throws Exception {
+		int[] pieces = new int[State.maxPieces];
+		Arrays.fill(pieces, -1);
+		for(int sq = 0; sq < State.maxSquares; sq++) {
+			int code = codes[sq];
+			if(code == 0) {
+				continue;
+			}
+			int type = (code & 7)-1;
+			int base = ((code & 8) == 0) ? State.WKING : State.BKING;
+			int slot = -1;
+			for(int i = base; (i < base+15) && (slot == -1); i++) {
+				if( (pieces[i] == -1) && (State.typeOf[i] == type) ) {
+					slot = i;
+				}
+			}
+			if( (type < 0) || (type >= State.maxTypes) || (slot == -1) ) {
+				throw new Exception("bad or too many pieces at square "+sq);
+			}
+			pieces[slot] = 1 << sq;
+		}
+		System.arraycopy(pieces, 0, s.pieces, 0, State.maxPieces);
+		s.turn = whiteToMove;
+		s.movecounter = movecounter;
+		s.undoCount = 0;
+		s.fillMasks();
+	}
+
+	static String toText(State s) {
+		int[] codes = codes(s);
+		StringBuilder sb = new StringBuilder();
+		for(int rank = 5; rank >= 0; rank--) {
+			int empty = 0;
+			for(int file = 0; file < 5; file++) {
+				int code = codes[(rank*5)+file];
+				if(code == 0) {
+					empty++;
+					continue;
+				}
+				if(empty > 0) {
+					sb.append(empty);
+					empty = 0;
+				}
+				char c = LETTERS.charAt((code & 7)-1);
+				sb.append(((code & 8) == 0) ? c : Character.toLowerCase(c));
+			}
+			if(empty > 0) {
+				sb.append(empty);
+			}
+			if(rank > 0) {
+				sb.append('/');
+			}
+		}
+		sb.append(s.turn ? " w " : " b ").append(s.movecounter);
+		return sb.toString();
+	}
+
+	static void fromText(State s, String text) throws Exception {
+		String[] fields = text.trim().split("\\s+");
+		String[] ranks = fields[0].split("/");
+		if(ranks.length != 6) {
+			throw new Exception("position needs 6 ranks: "+text);
+		}
+		int[] codes = new int[State.maxSquares];
+		for(int r = 0; r < 6; r++) {
+			int rank = 5-r;
+			int file = 0;
+			for(char c : ranks[r].toCharArray()) {
+				if( (c >= '1') && (c <= '5') ) {
+					file += c-'0';
+					continue;
+				}
+				int type = LETTERS.indexOf(Character.toUpperCase(c));
+				if( (type == -1) || (file >= 5) ) {
+					throw new Exception("bad rank "+ranks[r]);
+				}
+				codes[(rank*5)+file] = (type+1) | (Character.isLowerCase(c) ? 8 : 0);
+				file++;
+			}
+			if(file != 5) {
+				throw new Exception("bad rank "+ranks[r]);
+			}
+		}
+		if( (fields.length >= 2) && !fields[1].equals("w") && !fields[1].equals("b") ) {
+			throw new Exception("bad side to move "+fields[1]);
+		}
+		boolean whiteToMove = (fields.length < 2) || fields[1].equals("w");
+		int movecounter = 0;
+		if(fields.length >= 3) {
+			if(!fields[2].matches("[0-9]{1,3}") || (Integer.parseInt(fields[2]) > MAX_MOVECOUNTER)) {
+				throw new Exception("bad move counter "+fields[2]);
+			}
+			movecounter = Integer.parseInt(fields[2]);
+		}
+		load(s, codes, whiteToMove, movecounter);
+	}
+
+	//Write s as BYTES bytes at the buffer's position
+	static void encode(State s, ByteBuffer out) throws Exception {
+		if( (s.movecounter < 0) || (s.movecounter > MAX_MOVECOUNTER) ) {
+			throw new Exception("move counter "+s.movecounter+" does not fit the binary form");
+		}
+		long low = 0;
+		long high = 0;
+		for(int sq = 0; sq < State.maxSquares; sq++) {
+			int slot = s.squares[sq];
+			if(slot == -1) {
+				continue;
+			}
+			long code = (State.typeOf[slot]+1) | ((slot < State.BKING) ? 0 : 8);
+			if(sq < 16) {
+				low |= code << (sq*4);
+			}
+			else {
+				high |= code << ((sq-16)*4);
+			}
+		}
+		if(!s.turn) {
+			high |= 1L << 56;
+		}
+		high |= (long)s.movecounter << 57;
+		out.putLong(low);
+		out.putLong(high);
+	}
+
+	//Read BYTES bytes at the buffer's position into s
+	static void decode(State s, ByteBuffer in) throws Exception {
+		long low = in.getLong();
+		long high = in.getLong();
+		int[] codes = new int[State.maxSquares];
+		for(int sq = 0; sq < 16; sq++) {
+			codes[sq] = (int)(low >>> (sq*4)) & 15;
+		}
+		for(int sq = 16; sq < State.maxSquares; sq++) {
+			codes[sq] = (int)(high >>> ((sq-16)*4)) & 15;
+		}
+		load(s, codes, ((high >>> 56) & 1) == 0, (int)(high >>> 57));
+	}
+}
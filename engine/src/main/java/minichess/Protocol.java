@@ -0,0 +1,295 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+import java.io.*;
+import java.util.*;
+
+//A line based engine protocol on the lines of UCI, so that a GUI or a
+//match runner can drive the engine without the console game.  Moves are
+//written from-to without the dash, e.g. b2b3; b2-b3 is accepted as well.
+//
+//  uci                            identify, list options, uciok
+//  isready                        readyok
+//  setoption name <n> value <v>   Hash (MB) or Threads
+//  ucinewgame                     clear the hash table
+//  position startpos|fen <position> [moves <move> ...]
+//                                 position as in Position, e.g.
+//                                 fen kqbnr/ppppp/5/5/PPPPP/RNBQK w 0
+//  go [depth <d>] [movetime <ms>] [nodes <n>] [infinite] [ponder]
+//  ponderhit                      the pondered move was played: search on
+//                                 under the limits given with go ponder
+//  stop                           end the search, which prints bestmove
+//  quit
+//
+//While searching, an info line is printed for every finished iteration:
+//  info depth <d> score cp <x>|mate <n> nodes <n> nps <n> time <ms> pv ...
+class Protocol {
+
+	State state;
+	BufferedReader in;
+	PrintStream out;
+
+	//The search running in the background, if any
+	Thread searchThread;
+	SearchLimits searchLimits;
+
+	//The limits to switch to on ponderhit
+	SearchLimits ponderLimits;
+
+	Protocol(State s, InputStream input, PrintStream output) {
+		state = s;
+		in = new BufferedReader(new InputStreamReader(input));
+		out = output;
+	}
+
+	public void run() throws Exception {
+		String line;
+		while((line = in.readLine()) != null) {
+			String[] words = line.trim().split("\\s+");
+			String command = words[0];
+
+			if(command.equals("uci")) {
+				out.println("id name MiniChess");
+				out.println("id author Tim Hamilton");
+				out.println("option name Hash type spin default "+TranspositionTable.DEFAULT_MB+" min 1 max 8192");
+				out.println("option name Threads type spin default 1 min 1 max 64");
+				out.println("uciok");
+			}
+			else if(command.equals("isready")) {
+				out.println("readyok");
+			}
+			else if(command.equals("setoption")) {
+				waitForSearch();
+				setOption(words);
+			}
+			else if(command.equals("ucinewgame")) {
+				waitForSearch();
+				state.tt.clear();
+			}
+			else if(command.equals("position")) {
+				waitForSearch();
+				position(words);
+			}
+			else if(command.equals("go")) {
+				waitForSearch();
+				go(words);
+			}
+			else if(command.equals("ponderhit")) {
+				if( (searchThread != null) && (ponderLimits != null) ) {
+					searchLimits.ponderHit(ponderLimits);
+					ponderLimits = null;
+				}
+			}
+			else if(command.equals("stop")) {
+				waitForSearch();
+			}
+			else if(command.equals("quit")) {
+				break;
+			}
+			else if(command.length() > 0) {
+				out.println("info string unknown command "+command);
+			}
+		}
+		waitForSearch();
+	}
+
+	void setOption(String[] words) {
+		String name = "";
+		String value = "";
+		for(int i = 1; i+1 < words.length; i++) {
+			if(words[i].equals("name")) {
+				name = words[i+1];
+			}
+			else if(words[i].equals("value")) {
+				value = words[i+1];
+			}
+		}
+		if(name.equalsIgnoreCase("Hash")) {
+			state.tt.resize(Integer.parseInt(value));
+		}
+		else if(name.equalsIgnoreCase("Threads")) {
+			state.threads = Integer.parseInt(value);
+		}
+	}
+
+	void position(String[] words) throws Exception {
+		int i = 1;
+		if( (i < words.length) && words[i].equals("startpos") ) {
+			state.newGame();
+			i++;
+		}
+		else if( (i < words.length) && words[i].equals("fen") ) {
+			StringBuilder fen = new StringBuilder();
+			for(i++; (i < words.length) && !words[i].equals("moves"); i++) {
+				fen.append(words[i]).append(' ');
+			}
+			try {
+				Position.fromText(state, fen.toString());
+			}
+			catch(Exception e) {
+				out.println("info string "+e.getMessage());
+				return;
+			}
+		}
+		if( (i < words.length) && words[i].equals("moves") ) {
+			for(i++; i < words.length; i++) {
+				int m = state.parseMove(words[i]);
+				if(m == 0) {
+					out.println("info string illegal move "+words[i]);
+					return;
+				}
+				state.processMove(m);
+			}
+		}
+	}
+
+	void go(String[] words) {
+		final SearchLimits l = new SearchLimits(0);
+		boolean ponder = false;
+		for(int i = 1; i < words.length; i++) {
+			if(words[i].equals("infinite")) {
+				l.infinite = true;
+			}
+			else if(words[i].equals("ponder")) {
+				ponder = true;
+			}
+			else if(i+1 < words.length) {
+				if(words[i].equals("depth")) {
+					l.depth = Integer.parseInt(words[++i]);
+				}
+				else if(words[i].equals("movetime")) {
+					l.movetime = Long.parseLong(words[++i]);
+				}
+				else if(words[i].equals("nodes")) {
+					l.nodes = Long.parseLong(words[++i]);
+				}
+			}
+		}
+
+		//A ponder search runs until ponderhit or stop, and keeps the limits
+		//for after the hit
+		ponderLimits = null;
+		if(ponder) {
+			ponderLimits = new SearchLimits(l.depth);
+			ponderLimits.movetime = l.movetime;
+			ponderLimits.nodes = l.nodes;
+			ponderLimits.infinite = l.infinite;
+			l.depth = 0;
+			l.movetime = 0;
+			l.nodes = 0;
+			l.infinite = true;
+		}
+
+		searchLimits = l;
+		searchThread = new Thread(new Runnable() {
+			public void run() {
+				search(l);
+			}
+		}, "search");
+		searchThread.start();
+	}
+
+	void search(SearchLimits l) {
+		state.info = out;
+		try {
+			state.moveGen();
+			if( (state.moveCount == 0) ||
+				(state.pieces[State.WKING] == -1) || (state.pieces[State.BKING] == -1) ) {
+				out.println("bestmove 0000");
+				return;
+			}
+			//A book move is played at once, unless the search is meant to
+			//run until it is stopped
+			if( (state.book != null) && !l.infinite ) {
+				int m = state.book.probe(state);
+				if(m != 0) {
+					out.println("info string book move");
+					out.println("bestmove "+text(m));
+					return;
+				}
+			}
+
+			//So is the best move by the tablebases
+			if(!l.infinite) {
+				int m = state.tablebaseMove();
+				if(m != 0) {
+					out.println("info string tablebase move");
+					out.println("bestmove "+text(m));
+					return;
+				}
+			}
+
+			int best = state.think(l);
+			if(state.rootPool != null) {
+				out.println(info(state, l, state.completedDepth, state.bestScore, best));
+			}
+			out.println("bestmove "+text(best));
+		}
+		catch(Exception e) {
+			out.println("info string search failed: "+e);
+			out.println("bestmove 0000");
+		}
+		finally {
+			state.info = null;
+		}
+	}
+
+	//Stop the running search, if there is one, and wait for its bestmove
+	void waitForSearch() throws InterruptedException {
+		if(searchThread != null) {
+			searchLimits.stop = true;
+			searchThread.join();
+			searchThread = null;
+		}
+	}
+
+	//The info line for a finished iteration
+	static String info(State s, SearchLimits l, int depth, float score, int best) throws Exception {
+		long nodes = Math.max(s.nodes, l.searched.get());
+		long ms = l.elapsed();
+
+		StringBuilder sb = new StringBuilder("info depth ");
+		sb.append(depth);
+		sb.append(" score ").append(score(score));
+		sb.append(" nodes ").append(nodes);
+		sb.append(" nps ").append(nodes*1000/Math.max(ms, 1));
+		sb.append(" time ").append(ms);
+		sb.append(" pv");
+		for(int m : s.principalVariation(best, depth)) {
+			sb.append(' ').append(text(m));
+		}
+		return sb.toString();
+	}
+
+	//A search score as cp <centipawns> or mate <moves>
+	static String score(float score) {
+		if(Math.abs(score) > State.WIN_BOUND) {
+			int plies = (int)(State.WIN-Math.abs(score));
+			return "mate "+((score > 0) ? (plies+1)/2 : -(plies+1)/2);
+		}
+		//evaluate() counts a pawn as 1/24
+		return "cp "+Math.round(score*2400);
+	}
+
+	static String text(int move) {
+		return new Move(move).toString().replace("-", "");
+	}
+}
@@ -0,0 +1,210 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+//Root-split search for fixed depth analysis.  Every root move is searched
+//to the full depth on its own copy of the position as a task in a
+//ForkJoinPool.  The tasks share the transposition table and the best score
+//found so far, which they use as alpha to cut their own search short.
+//
+//Which move wins does not depend on the order the tasks finish in: among
+//the moves with the best score the one generated first is chosen, and a
+//move that only failed low against an alpha equal to the best score is
+//searched again to see whether it ties.
+//
+//Every task searches under the caller's limits, so a time or node budget
+//or a stop ends them all.  The split search is then thrown away, like an
+//unfinished iteration, and the move of the warm up search is played.
+class RootSplit {
+
+	//Search the root list of s to l.depth and return the best move.  Its
+	//score is left in s.bestScore and the nodes searched by all tasks in
+	//s.nodes.
+	static int search(final State s, final SearchLimits l, ForkJoinPool pool) throws Exception {
+
+		final int n = s.moveCount;
+		if(n == 0) {
+			throw new Exception("No Moves available");
+		}
+
+		//Generation order decides ties, so keep it before anything reorders
+		//the root list
+		final int[] moves = Arrays.copyOf(s.moves, n);
+		final int depth = l.depth;
+
+		//A quick search one ply short fills the table and tells us which
+		//move to search first to get a useful alpha.  It also leaves a move
+		//to play if the budget runs out before the split search is done.
+		long nodes = 0;
+		int first = 0;
+		int fallback = moves[0];
+		float fallbackScore = 0;
+		int fallbackDepth = 0;
+		if(depth > 1) {
+			fallback = s.deepen(l, 1, depth-1);
+			fallbackScore = s.bestScore;
+			fallbackDepth = s.completedDepth;
+			nodes += s.nodes;
+			if(s.aborted) {
+				return fallback;
+			}
+			for(int i = 0; i < n; i++) {
+				if(moves[i] == fallback) {
+					first = i;
+				}
+			}
+		}
+		else {
+			s.limits = l;
+			s.aborted = false;
+		}
+
+		final float[] scores = new float[n];
+		final float[] alphas = new float[n];
+		final long[] counts = new long[n];
+		final boolean[] aborted = new boolean[n];
+		final AtomicInteger sharedAlpha = new AtomicInteger(Float.floatToIntBits(-State.INFINITY));
+
+		//The first move gets a full window on the calling thread...
+		s.nodes = 0;
+		alphas[first] = -State.INFINITY;
+		scores[first] = searchMove(s, moves[first], depth, -State.INFINITY);
+		counts[first] = s.nodes;
+		aborted[first] = s.aborted;
+		raise(sharedAlpha, scores[first]);
+
+		//...and the rest are split over the pool
+		List<Future<?>> tasks = new ArrayList<Future<?>>();
+		for(int i = 0; i < n; i++) {
+			if(i == first) {
+				continue;
+			}
+			final int index = i;
+			tasks.add(pool.submit(new Callable<Object>() {
+				public Object call() throws Exception {
+					if(l.stop) {
+						aborted[index] = true;
+						return null;
+					}
+					State copy = new State(s);
+					copy.limits = l;
+					float alpha = Float.intBitsToFloat(sharedAlpha.get());
+					alphas[index] = alpha;
+					scores[index] = searchMove(copy, moves[index], depth, alpha);
+					counts[index] = copy.nodes;
+					aborted[index] = copy.aborted;
+					raise(sharedAlpha, scores[index]);
+					return null;
+				}
+			}));
+		}
+		for(Future<?> f : tasks) {
+			f.get();
+		}
+
+		//Every exact score is at most the best, and every fail low is at
+		//most the alpha it was searched with, which is at most the best
+		float best = -State.INFINITY;
+		boolean stopped = false;
+		for(int i = 0; i < n; i++) {
+			nodes += counts[i];
+			stopped |= aborted[i];
+			if(scores[i] > best) {
+				best = scores[i];
+			}
+		}
+		if(stopped) {
+			return fallback(s, fallback, fallbackScore, fallbackDepth, nodes);
+		}
+
+		int chosen = -1;
+		for(int i = 0; (i < n) && (chosen == -1); i++) {
+			boolean exact = (i == first) || (scores[i] > alphas[i]);
+			if(exact) {
+				if(scores[i] == best) {
+					chosen = i;
+				}
+			}
+			else if(scores[i] >= best) {
+				//Failed low against alpha == best: only an upper bound, so
+				//check whether it really reaches the best score
+				s.nodes = 0;
+				float check = searchMove(s, moves[i], depth, Math.nextDown(best));
+				nodes += s.nodes;
+				if(s.aborted) {
+					return fallback(s, fallback, fallbackScore, fallbackDepth, nodes);
+				}
+				if(check >= best) {
+					chosen = i;
+				}
+			}
+		}
+
+		s.bestScore = best;
+		s.completedDepth = depth;
+		s.nodes = nodes;
+		s.tt.store(s.hash, moves[chosen], best, depth, TranspositionTable.EXACT);
+		return moves[chosen];
+	}
+
+	//The split search did not finish: play the warm up search's move
+	static int fallback(State s, int m, float score, int depth, long nodes) {
+		s.bestScore = score;
+		s.completedDepth = depth;
+		s.nodes = nodes;
+		return m;
+	}
+
+	//Score one root move from the mover's point of view, searching with a
+	//zero width window above alpha first.  A result at or below alpha is
+	//only an upper bound.
+	static float searchMove(State s, int m, int depth, float alpha) throws Exception {
+		s.processMove(m);
+		float score;
+		if(alpha <= -State.INFINITY) {
+			score = -s.negamax(depth-1, 1, -State.INFINITY, State.INFINITY);
+		}
+		else {
+			score = -s.negamax(depth-1, 1, -Math.nextUp(alpha), -alpha);
+			if(score > alpha) {
+				score = -s.negamax(depth-1, 1, -State.INFINITY, -alpha);
+			}
+		}
+		s.undoLastMove();
+		s.flushMetrics();
+		return score;
+	}
+
+	//Raise the shared alpha to score if that is higher
+	static void raise(AtomicInteger alpha, float score) {
+		int old;
+		do {
+			old = alpha.get();
+			if(Float.intBitsToFloat(old) >= score) {
+				return;
+			}
+		} while(!alpha.compareAndSet(old, Float.floatToIntBits(score)));
+	}
+
+}
@@ -0,0 +1,58 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+//A Lazy SMP helper: runs State.deepen on its own copy of the position
+//until the shared limits are used up or the main thread stops it.
+class SearchHelper implements Runnable {
+	State state;
+	SearchLimits limits;
+	int firstDepth;
+	Thread thread;
+
+	//Best move of the helper's deepest finished iteration, 0 if none
+	int best = 0;
+
+	SearchHelper(State s, SearchLimits l, int d) {
+		state = s;
+		state.helper = true;
+		limits = l;
+		firstDepth = d;
+		thread = new Thread(this);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public void run() {
+		try {
+			state.moveGen();
+			if(state.moveCount > 0) {
+				best = state.deepen(limits, firstDepth);
+				if(state.completedDepth == 0) {
+					best = 0;
+				}
+			}
+		}
+		catch(Exception e) {
+			//A helper that fails only costs us its share of the work
+			best = 0;
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+import java.util.concurrent.atomic.*;
+
+//Budget for one search.  A limit left at 0 is not applied.  An infinite
+//search ignores them all and runs until stop is raised.
+class SearchLimits {
+	long movetime = 0;	//milliseconds
+	long nodes = 0;
+	int depth = 0;
+	volatile boolean infinite = false;
+
+	//Raised when the budget runs out, or from another thread to end the
+	//search early
+	volatile boolean stop = false;
+
+	long startTime = 0;
+
+	//Nodes searched so far by every thread working on this search
+	AtomicLong searched = new AtomicLong();
+
+	//Deepest iteration finished by any of those threads
+	AtomicInteger completed = new AtomicInteger();
+
+	SearchLimits(int d) {
+		depth = d;
+	}
+
+	//stop is left alone: one raised before the search got this far must
+	//still end it.  A search needs limits of its own, see copy().
+	void start() {
+		startTime = System.currentTimeMillis();
+		searched.set(0);
+		completed.set(0);
+	}
+
+	//The same budget, not yet started or stopped
+	SearchLimits copy() {
+		SearchLimits c = new SearchLimits(depth);
+		c.movetime = movetime;
+		c.nodes = nodes;
+		c.infinite = infinite;
+		return c;
+	}
+
+	long elapsed() {
+		return System.currentTimeMillis()-startTime;
+	}
+
+	//Turn a ponder search, which runs until it is stopped, into a normal
+	//one with the given budget, counted from now.  An iteration already
+	//past a depth budget is cut short by exceeded().  infinite is written
+	//last so that the search sees the new budget once it sees it cleared.
+	void ponderHit(SearchLimits budget) {
+		startTime = System.currentTimeMillis();
+		searched.set(0);
+		movetime = budget.movetime;
+		nodes = budget.nodes;
+		depth = budget.depth;
+		infinite = false;
+	}
+
+	//A thread finished the iteration to depth d
+	void iterationDone(int d) {
+		int old;
+		do {
+			old = completed.get();
+			if(old >= d) {
+				return;
+			}
+		} while(!completed.compareAndSet(old, d));
+	}
+
+	//Count newNodes more nodes searched by the calling thread.  Has the
+	//search used up its budget, or been told to stop?
+	boolean exceeded(long newNodes) {
+		long total = searched.addAndGet(newNodes);
+		if(!infinite) {
+			if( ((nodes > 0) && (total >= nodes)) ||
+				((movetime > 0) && (elapsed() >= movetime)) ||
+				((depth > 0) && (completed.get() >= depth)) ) {
+				stop = true;
+			}
+		}
+		return stop;
+	}
+}
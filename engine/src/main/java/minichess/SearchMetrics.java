@@ -0,0 +1,205 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+import java.io.*;
+import java.lang.management.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import javax.management.*;
+
+//Counters for watching the search, shared by every search thread.  They
+//are LongAdders, so threads adding to them at once do not fight over one
+//cache line, and the threads only add to them every so often anyway: a
+//State keeps its own counts and hands them over in flushMetrics().
+//
+//The counters are published as an MBean and can also be printed as a one
+//line summary at a fixed interval.
+public class SearchMetrics implements SearchMetricsMBean {
+
+	static final SearchMetrics global = new SearchMetrics();
+
+	final LongAdder nodes = new LongAdder();
+	final LongAdder qnodes = new LongAdder();
+	final LongAdder probes = new LongAdder();
+	final LongAdder hits = new LongAdder();
+	final LongAdder cutoffs = new LongAdder();
+	final LongAdder firstCutoffs = new LongAdder();
+
+	final LongAdder searches = new LongAdder();
+	final LongAdder searchNanos = new LongAdder();
+
+	//Effective branching factor of each search, summed to be averaged
+	final DoubleAdder branching = new DoubleAdder();
+	final LongAdder branchingCount = new LongAdder();
+
+	//Iteration times by depth
+	final LongAdder[] depthNanos = new LongAdder[State.maxPly];
+	final LongAdder[] depthCount = new LongAdder[State.maxPly];
+
+	private ScheduledExecutorService reporter;
+
+	SearchMetrics() {
+		for(int d = 0; d < State.maxPly; d++) {
+			depthNanos[d] = new LongAdder();
+			depthCount[d] = new LongAdder();
+		}
+	}
+
+	//Publish the global counters to the platform MBean server
+	static void register() throws Exception {
+		ObjectName name = new ObjectName("minichess:type=SearchMetrics");
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		if(!server.isRegistered(name)) {
+			server.registerMBean(global, name);
+		}
+	}
+
+	//Print the summary to out every so many seconds, from a daemon thread
+	synchronized void startReporting(long seconds, final PrintStream out) {
+		if(reporter != null) {
+			reporter.shutdownNow();
+		}
+		reporter = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "metrics");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		reporter.scheduleAtFixedRate(new Runnable() {
+			public void run() {
+				out.println(getSummary());
+			}
+		}, seconds, seconds, TimeUnit.SECONDS);
+	}
+
+	void searchFinished(long nanos) {
+		searches.increment();
+		searchNanos.add(nanos);
+	}
+
+	void iterationFinished(int depth, long nanos) {
+		if( (depth > 0) && (depth <= State.maxPly) ) {
+			depthNanos[depth-1].add(nanos);
+			depthCount[depth-1].increment();
+		}
+	}
+
+	void branchingFactor(double ebf) {
+		branching.add(ebf);
+		branchingCount.increment();
+	}
+
+	public long getNodes() {
+		return nodes.sum();
+	}
+
+	public long getQNodes() {
+		return qnodes.sum();
+	}
+
+	//Over the time spent inside think(), not the time since start up
+	public long getNodesPerSecond() {
+		long ns = searchNanos.sum();
+		return (ns == 0) ? 0 : (long)(nodes.sum()*1e9/ns);
+	}
+
+	public long getHashProbes() {
+		return probes.sum();
+	}
+
+	public long getHashHits() {
+		return hits.sum();
+	}
+
+	public double getHashHitRate() {
+		long p = probes.sum();
+		return (p == 0) ? 0 : (double)hits.sum()/p;
+	}
+
+	public long getBetaCutoffs() {
+		return cutoffs.sum();
+	}
+
+	//How often the first move searched was the one that cut off, a
+	//measure of move ordering
+	public double getFirstMoveCutoffRate() {
+		long c = cutoffs.sum();
+		return (c == 0) ? 0 : (double)firstCutoffs.sum()/c;
+	}
+
+	public double getEffectiveBranchingFactor() {
+		long n = branchingCount.sum();
+		return (n == 0) ? 0 : branching.sum()/n;
+	}
+
+	public long getSearches() {
+		return searches.sum();
+	}
+
+	public double[] getDepthMillis() {
+		int last = 0;
+		for(int d = 0; d < State.maxPly; d++) {
+			if(depthCount[d].sum() > 0) {
+				last = d+1;
+			}
+		}
+		double[] ms = new double[last];
+		for(int d = 0; d < last; d++) {
+			long n = depthCount[d].sum();
+			ms[d] = (n == 0) ? 0 : depthNanos[d].sum()/(n*1e6);
+		}
+		return ms;
+	}
+
+	public String getSummary() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("searches ").append(getSearches());
+		sb.append(" nodes ").append(getNodes());
+		sb.append(" qnodes ").append(getQNodes());
+		sb.append(" nps ").append(getNodesPerSecond());
+		sb.append(String.format(" hash %.1f%%", getHashHitRate()*100));
+		sb.append(String.format(" first cutoff %.1f%%", getFirstMoveCutoffRate()*100));
+		sb.append(String.format(" ebf %.2f", getEffectiveBranchingFactor()));
+		sb.append(" depth ms");
+		for(double ms : getDepthMillis()) {
+			sb.append(String.format(" %.1f", ms));
+		}
+		return sb.toString();
+	}
+
+	public void reset() {
+		nodes.reset();
+		qnodes.reset();
+		probes.reset();
+		hits.reset();
+		cutoffs.reset();
+		firstCutoffs.reset();
+		searches.reset();
+		searchNanos.reset();
+		branching.reset();
+		branchingCount.reset();
+		for(int d = 0; d < State.maxPly; d++) {
+			depthNanos[d].reset();
+			depthCount[d].reset();
+		}
+	}
+}
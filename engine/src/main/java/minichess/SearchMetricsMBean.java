@@ -0,0 +1,48 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+//Management interface of SearchMetrics, seen by JMX clients such as
+//jconsole under minichess:type=SearchMetrics
+public interface SearchMetricsMBean {
+
+	long getNodes();
+	long getQNodes();
+	long getNodesPerSecond();
+
+	long getHashProbes();
+	long getHashHits();
+	double getHashHitRate();
+
+	long getBetaCutoffs();
+	double getFirstMoveCutoffRate();
+
+	double getEffectiveBranchingFactor();
+
+	long getSearches();
+
+	//Average time to finish an iteration of each depth, index 0 for
+	//depth 1, in milliseconds
+	double[] getDepthMillis();
+
+	String getSummary();
+
+	void reset();
+}
@@ -0,0 +1,43 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+import jdk.jfr.*;
+
+//Flight Recorder events for the phases of a search, so a recording can
+//show what the engine was doing around a GC pause or a slow move.  Events
+//are only built up and committed when a recording has them enabled.
+@Name("minichess.SearchStarted")
+@Label("Search Started")
+@Category("MiniChess")
+class SearchStartedEvent extends Event {
+	@Label("Depth Limit")
+	int depth;
+
+	@Label("Time Limit")
+	@Timespan(Timespan.MILLISECONDS)
+	long movetime;
+
+	@Label("Node Limit")
+	long nodes;
+
+	@Label("Threads")
+	int threads;
+}
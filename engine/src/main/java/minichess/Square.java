@@ -0,0 +1,38 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+class Square {
+	char x;		//a-e
+	int y;		//1-6
+	int number;  //0-29
+	Square(int num) {
+		int temp = num %5;
+		switch(temp) {
+			case 0: x='a'; break;
+			case 1: x='b'; break;
+			case 2: x='c'; break;
+			case 3: x='d'; break;
+			case 4: x='e'; break;
+		}
+		y = (num /5)+1;
+		number = num;
+	}
+}
@@ -0,0 +1,1928 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+class State {
+	//Set certain array elements to the following variable names
+	//for ease of programming later
+	static final int WKING = 0;
+	static final int WQUEEN = 1;
+	static final int WBISHOP = 2;
+	static final int WKNIGHT = 3;
+	static final int WROOK = 4;
+	static final int WPAWN1 = 5;
+	static final int WPAWN2 = 6;
+	static final int WPAWN3 = 7;
+	static final int WPAWN4 = 8;
+	static final int WPAWN5 = 9;
+	static final int WQUEEN1 = 10;
+	static final int WQUEEN2 = 11;
+	static final int WQUEEN3 = 12;
+	static final int WQUEEN4 = 13;
+	static final int WQUEEN5 = 14;
+
+	static final int BKING = 15;
+	static final int BQUEEN = 16;
+	static final int BBISHOP = 17;
+	static final int BKNIGHT = 18;
+	static final int BROOK = 19;
+	static final int BPAWN1 = 20;
+	static final int BPAWN2 = 21;
+	static final int BPAWN3 = 22;
+	static final int BPAWN4 = 23;
+	static final int BPAWN5 = 24;
+	static final int BQUEEN1 = 25;
+	static final int BQUEEN2 = 26;
+	static final int BQUEEN3 = 27;
+	static final int BQUEEN4 = 28;
+	static final int BQUEEN5 = 29;
+
+	//Piece types, shared by both colors.  The first five match the
+	//order of the back rank slots above.
+	static final int KING = 0;
+	static final int QUEEN = 1;
+	static final int BISHOP = 2;
+	static final int KNIGHT = 3;
+	static final int ROOK = 4;
+	static final int PAWN = 5;
+	static final int maxTypes = 6;
+
+	//The piece type held by each of the 30 slots
+	static final int[] typeOf = {
+		KING, QUEEN, BISHOP, KNIGHT, ROOK,
+		PAWN, PAWN, PAWN, PAWN, PAWN,
+		QUEEN, QUEEN, QUEEN, QUEEN, QUEEN,
+		KING, QUEEN, BISHOP, KNIGHT, ROOK,
+		PAWN, PAWN, PAWN, PAWN, PAWN,
+		QUEEN, QUEEN, QUEEN, QUEEN, QUEEN
+	};
+
+	//Rank and file steps for the eight directions.  The first four are
+	//the rook directions, the last four the bishop diagonals.
+	static final int[] rayRanks = { 1, -1, 0, 0, 1, 1, -1, -1 };
+	static final int[] rayFiles = { 0, 0, -1, 1, -1, 1, -1, 1 };
+
+	//Rank and file steps for the eight knight jumps
+	static final int[] knightRanks = { 1, 2, 2, 1, -1, -2, -2, -1 };
+	static final int[] knightFiles = { -2, -1, 1, 2, 2, 1, -1, -2 };
+
+	static final int maxSquares = 30;
+	static final int maxPieces = 30;
+
+	//Size of the per-ply move buffers.  No position on this board comes
+	//anywhere near maxMoves pseudo-legal moves, even with six queens.
+	static final int maxPly = 64;
+	static final int maxMoves = 256;
+
+	static final int[] powOf2 = new int[maxSquares];
+
+	//Target masks for the pieces that only take a single step, one 30 bit
+	//mask per starting square.  The pawn tables are indexed [0] for white
+	//and [1] for black.  All of them are built once when the class loads.
+	static final int[] kingAttacks = new int[maxSquares];
+	static final int[] knightAttacks = new int[maxSquares];
+	static final int[][] pawnPushes = new int[2][maxSquares];
+	static final int[][] pawnCaptures = new int[2][maxSquares];
+
+	//The first and last ranks, where pawns promote
+	static final int promotionSquares = 0x1F | (0x1F << 25);
+
+	static {
+		for(int sq = 0; sq < maxSquares; sq++) {
+			int rank = sq/5;
+			int file = sq%5;
+
+			for(int d = 0; d < 8; d++) {
+				kingAttacks[sq] |= squareMask(rank+rayRanks[d], file+rayFiles[d]);
+				knightAttacks[sq] |= squareMask(rank+knightRanks[d], file+knightFiles[d]);
+			}
+
+			pawnPushes[0][sq] = squareMask(rank+1, file);
+			pawnCaptures[0][sq] = squareMask(rank+1, file-1) | squareMask(rank+1, file+1);
+			pawnPushes[1][sq] = squareMask(rank-1, file);
+			pawnCaptures[1][sq] = squareMask(rank-1, file-1) | squareMask(rank-1, file+1);
+		}
+	}
+
+	//Sliding attacks are looked up by occupancy rather than walked ray by
+	//ray.  For each square we keep the mask of squares whose occupancy can
+	//change the rook (or bishop) attack set, which leaves out the last square
+	//of every ray, and a multiplier that maps each subset of that mask to a
+	//distinct slot in the square's attack table.  The multipliers are found
+	//by a seeded trial search when the class loads, which takes a few
+	//milliseconds on a board this small.
+	static final int[] rookMasks = new int[maxSquares];
+	static final int[] bishopMasks = new int[maxSquares];
+	static final long[] rookMagics = new long[maxSquares];
+	static final long[] bishopMagics = new long[maxSquares];
+	static final int[] rookShifts = new int[maxSquares];
+	static final int[] bishopShifts = new int[maxSquares];
+	static final int[][] rookTable = new int[maxSquares][];
+	static final int[][] bishopTable = new int[maxSquares][];
+
+	static {
+		Random magicRng = new Random(5*6);
+		for(int sq = 0; sq < maxSquares; sq++) {
+			rookMasks[sq] = relevantMask(sq, 0, 4);
+			bishopMasks[sq] = relevantMask(sq, 4, 8);
+			rookShifts[sq] = 64-Integer.bitCount(rookMasks[sq]);
+			bishopShifts[sq] = 64-Integer.bitCount(bishopMasks[sq]);
+			rookTable[sq] = new int[1 << Integer.bitCount(rookMasks[sq])];
+			bishopTable[sq] = new int[1 << Integer.bitCount(bishopMasks[sq])];
+			rookMagics[sq] = findMagic(sq, 0, 4, rookMasks[sq], rookShifts[sq], rookTable[sq], magicRng);
+			bishopMagics[sq] = findMagic(sq, 4, 8, bishopMasks[sq], bishopShifts[sq], bishopTable[sq], magicRng);
+		}
+	}
+
+	//Rook attacks from a square given the occupancy of the whole board
+	static int rookAttacks(int sq, int occupied) {
+		return rookTable[sq][(int)(((occupied & rookMasks[sq]) * rookMagics[sq]) >>> rookShifts[sq])];
+	}
+
+	//Bishop attacks from a square given the occupancy of the whole board
+	static int bishopAttacks(int sq, int occupied) {
+		return bishopTable[sq][(int)(((occupied & bishopMasks[sq]) * bishopMagics[sq]) >>> bishopShifts[sq])];
+	}
+
+	//Walk the rays firstDir..lastDir-1 (see rayRanks) from a square,
+	//stopping on the first occupied square of each.  Only used to fill the
+	//lookup tables, so speed does not matter here.
+	static int slidingAttacks(int sq, int occupied, int firstDir, int lastDir) {
+		int attacks = 0;
+		for(int d = firstDir; d < lastDir; d++) {
+			int rank = (sq/5)+rayRanks[d];
+			int file = (sq%5)+rayFiles[d];
+			int bit;
+			while((bit = squareMask(rank, file)) != 0) {
+				attacks |= bit;
+				if((occupied & bit) != 0) {
+					break;
+				}
+				rank += rayRanks[d];
+				file += rayFiles[d];
+			}
+		}
+		return attacks;
+	}
+
+	//The squares along rays firstDir..lastDir-1 whose occupancy matters,
+	//which is every ray square except the one at the edge of the board
+	static int relevantMask(int sq, int firstDir, int lastDir) {
+		int mask = 0;
+		for(int d = firstDir; d < lastDir; d++) {
+			int rank = (sq/5)+rayRanks[d];
+			int file = (sq%5)+rayFiles[d];
+			while(squareMask(rank+rayRanks[d], file+rayFiles[d]) != 0) {
+				mask |= squareMask(rank, file);
+				rank += rayRanks[d];
+				file += rayFiles[d];
+			}
+		}
+		return mask;
+	}
+
+	//Try sparse random multipliers until one sends every subset of the
+	//relevant mask to a table slot that is either unused or already holds
+	//the same attack set, then leave the table filled in for that multiplier
+	static long findMagic(int sq, int firstDir, int lastDir, int mask, int shift, int[] table, Random magicRng) {
+		int size = table.length;
+		int[] subsets = new int[size];
+		int[] attacks = new int[size];
+		int n = 0;
+		int sub = 0;
+		do {
+			subsets[n] = sub;
+			attacks[n] = slidingAttacks(sq, sub, firstDir, lastDir);
+			n++;
+			sub = (sub-mask) & mask;
+		} while(sub != 0);
+
+		boolean[] used = new boolean[size];
+		while(true) {
+			long magic = magicRng.nextLong() & magicRng.nextLong() & magicRng.nextLong();
+			Arrays.fill(used, false);
+			boolean ok = true;
+			for(int i = 0; (i < n) && ok; i++) {
+				int index = (int)((subsets[i]*magic) >>> shift);
+				if(!used[index]) {
+					used[index] = true;
+					table[index] = attacks[i];
+				}
+				else if(table[index] != attacks[i]) {
+					ok = false;
+				}
+			}
+			if(ok) {
+				return magic;
+			}
+		}
+	}
+
+	//Zobrist keys, one random 64 bit number per piece kind and square plus
+	//one for black to move.  Slots holding the same kind of piece share a
+	//row, so positions that only differ in which pawn or queen slot is
+	//used hash alike.
+	static final long[][] pieceKeys = new long[maxPieces][];
+	static final long blackToMoveKey;
+
+	static {
+		Random keyRng = new Random(2007);
+		long[][] kindKeys = new long[2*maxTypes][maxSquares];
+		for(int k = 0; k < 2*maxTypes; k++) {
+			for(int sq = 0; sq < maxSquares; sq++) {
+				kindKeys[k][sq] = keyRng.nextLong();
+			}
+		}
+		for(int i = 0; i < maxPieces; i++) {
+			pieceKeys[i] = kindKeys[kindOf(i)];
+		}
+		blackToMoveKey = keyRng.nextLong();
+	}
+
+	//Piece-square tables, in eighths of a pawn, from white's side of the
+	//board: the first row is rank 1.  Black uses them mirrored.
+	static final int EVAL_SCALE = 8;
+	static final int[][] pst = {
+		//King: stay home
+		{  0,  0,  0,  0,  0,
+		  -2, -2, -2, -2, -2,
+		  -4, -4, -4, -4, -4,
+		  -6, -6, -6, -6, -6,
+		  -6, -6, -6, -6, -6,
+		  -6, -6, -6, -6, -6 },
+		//Queen
+		{ -2, -1, -1, -1, -2,
+		  -1,  0,  1,  0, -1,
+		  -1,  1,  2,  1, -1,
+		  -1,  1,  2,  1, -1,
+		  -1,  0,  1,  0, -1,
+		  -2, -1, -1, -1, -2 },
+		//Bishop
+		{ -2, -1, -1, -1, -2,
+		  -1,  1,  1,  1, -1,
+		  -1,  1,  2,  1, -1,
+		  -1,  1,  2,  1, -1,
+		  -1,  1,  1,  1, -1,
+		  -2, -1, -1, -1, -2 },
+		//Knight: poor on the rim
+		{ -4, -2, -2, -2, -4,
+		  -2,  0,  1,  0, -2,
+		  -2,  1,  3,  1, -2,
+		  -2,  1,  3,  1, -2,
+		  -2,  0,  1,  0, -2,
+		  -4, -2, -2, -2, -4 },
+		//Rook
+		{  0,  0,  1,  0,  0,
+		   0,  0,  0,  0,  0,
+		   0,  0,  0,  0,  0,
+		   0,  0,  0,  0,  0,
+		   1,  1,  1,  1,  1,
+		   0,  0,  0,  0,  0 },
+		//Pawn: worth more the nearer it is to promoting
+		{  0,  0,  0,  0,  0,
+		   0,  0,  0,  0,  0,
+		   1,  2,  3,  2,  1,
+		   3,  4,  5,  4,  3,
+		   6,  7,  8,  7,  6,
+		   0,  0,  0,  0,  0 }
+	};
+
+	//Material plus piece-square value of each slot on each square, in
+	//eighths of a pawn, positive for white and negative for black
+	static final int[][] pieceScore = new int[maxPieces][maxSquares];
+
+	static {
+		for(int i = 0; i < maxPieces; i++) {
+			for(int sq = 0; sq < maxSquares; sq++) {
+				if(i < BKING) {
+					pieceScore[i][sq] = (valueOf(i)*EVAL_SCALE)+pst[typeOf[i]][sq];
+				}
+				else {
+					int mirror = ((5-(sq/5))*5)+(sq%5);
+					pieceScore[i][sq] = -((valueOf(i)*EVAL_SCALE)+pst[typeOf[i]][mirror]);
+				}
+			}
+		}
+	}
+
+	//The bit for the square at a given rank and file, or 0 when that
+	//position is off the board
+	static int squareMask(int rank, int file) {
+		if( (rank < 0) || (rank > 5) || (file < 0) || (file > 4) ) {
+			return 0;
+		}
+		return 1 << ((rank*5)+file);
+	}
+
+
+	//The main board state, stored as a 30 bit integer for position
+	//square a0 is 2^0, square e6 is 2^29.
+	int[] pieces = new int[30];
+
+	//Aggregate occupancy masks in the same 30 bit format, kept up to date
+	//by processMove and undoLastMove so that move generation can test a
+	//square with a single AND instead of scanning every piece.
+	int whiteMask = 0;
+	int blackMask = 0;
+	int allMask = 0;
+	int[] typeMask = new int[maxTypes];
+
+	//Square to piece lookup, the inverse of pieces[]: the slot standing on
+	//each square 0-29, or -1 for an empty square.  Kept in step by
+	//processMove and undoLastMove.
+	byte[] squares = new byte[maxSquares];
+
+	//Zobrist hash of the position and side to move, updated along with
+	//the occupancy masks
+	long hash = 0;
+
+	//Sum of pieceScore over every piece on the board, kept up to date the
+	//same way, so evaluate() does not have to add up the pieces
+	int evalScore = 0;
+
+	//Table of previously searched positions.  Copies of a State share it.
+	TranspositionTable tt;
+
+	//Opening moves to play without searching, if there is a book, and
+	//endgame tablebases.  Also shared by copies.
+	OpeningBook book = null;
+	Tablebase tablebase = null;
+
+	//Working space for probing the tablebases, never shared
+	Tablebase.Scratch tbScratch = new Tablebase.Scratch();
+
+	//The turn counter.  true = white, false = black.
+	boolean turn = true;
+
+	//Number of moves so far, for the draw rule.
+	int movecounter = 0;
+
+	//Character array for printing the board on the screen, only updated
+	//after a move.
+	char[] board = new char[30];
+
+	//Random number generator
+	Random rng = new Random();
+
+	//Preallocated move lists, one per ply of search, holding packed int
+	//moves (see Move).  moves is the root list filled in by moveGen().
+	int[][] moveStack = new int[maxPly][maxMoves];
+	int[] moves = moveStack[0];
+	int moveCount = 0;
+
+	//Move ordering.  Each ply has a list of sort keys matching its move
+	//list, two killer moves (quiet moves that recently caused a cutoff at
+	//that ply), and a history score per piece kind and target square
+	//rewards quiet moves that cause cutoffs anywhere in the tree.
+	int[][] scoreStack = new int[maxPly][maxMoves];
+	int[][] killers = new int[maxPly][2];
+	int[][] history = new int[2*maxTypes][maxSquares];
+
+	//Scratch list for the static exchange evaluator
+	int[] seeGain = new int[32];
+
+	//Sort key tiers, highest first
+	static final int HASH_MOVE_KEY = 1 << 30;
+	static final int CAPTURE_KEY = 1 << 28;
+	static final int KILLER_KEY = 1 << 27;
+	static final int HISTORY_MAX = 1 << 20;
+
+	//Order in which the exchange evaluator brings in attackers
+	static final int[] seeOrder = { PAWN, BISHOP, KNIGHT, ROOK, QUEEN, KING };
+
+	//Allowance in valueOf units for positional gains when deciding a
+	//capture cannot possibly raise alpha
+	static final int DELTA_MARGIN = 2;
+
+	//Search scores.  Material scores from evaluate() stay well inside
+	//+-3, a captured king is worth WIN less the distance from the root
+	//so the quickest win is preferred, and INFINITY bounds everything.
+	//Anything beyond WIN_BOUND is a win or a loss: the search finds them
+	//at most maxPly plies away, the tablebases up to 127 plies further.
+	static final float WIN = 1000.0f;
+	static final float WIN_BOUND = WIN-(maxPly+127);
+	static final float INFINITY = 10000.0f;
+
+	//Budget for each search started by makeMove.  Without any other
+	//limit it searches to depth 6.
+	SearchLimits moveLimits = new SearchLimits(6);
+
+	//Limits of the search in progress.  aborted is set, and stays set
+	//until the search returns, once they are used up.
+	SearchLimits limits = new SearchLimits(0);
+	boolean aborted = false;
+
+	//Number of threads think() searches with
+	int threads = 1;
+
+	//When set, fixed depth searches are split over the root moves on this
+	//pool instead (see RootSplit)
+	ForkJoinPool rootPool = null;
+
+	//Score of the last root search and the depth it finished
+	float bestScore = 0;
+	int completedDepth = 0;
+
+	//The value of this state, as given by the evaluator.
+	float value = 0;
+
+
+	//variables for performance tracking
+	long nodes = 0;
+
+	//The search of the expected reply running while the opponent thinks
+	Ponder ponder = null;
+
+	//If set, a line about every finished iteration of the main thread is
+	//written here (see Protocol.info)
+	PrintStream info = null;
+
+	//Counts for SearchMetrics, kept here and added to the shared counters
+	//by flushMetrics() every 1024 nodes, so that no node has to touch a
+	//counter another thread is using
+	long statNodes = 0;
+	long statQNodes = 0;
+	long statProbes = 0;
+	long statHits = 0;
+	long statCutoffs = 0;
+	long statFirstCutoffs = 0;
+
+	//Set on the copies that Lazy SMP helpers and pondering search.  Only
+	//the main thread's iterations go into the metrics.
+	boolean helper = false;
+
+
+	//Undo stack, one entry for each move played.  Each entry keeps what
+	//undoLastMove() cannot work out from the move itself: the queen slot
+	//a promotion used, and the move counter, hash and evaluation from
+	//before the move.  The arrays only grow if a game outlasts them.
+	int[] undoMoves = new int[256];
+	int[] undoQueens = new int[256];
+	int[] undoCounters = new int[256];
+	long[] undoHashes = new long[256];
+	int[] undoEvals = new int[256];
+	int undoCount = 0;
+
+
+	//Basic contructor
+	State() {
+		fillPowOf2();
+		tt = new TranspositionTable(TranspositionTable.DEFAULT_MB);
+		setupBoard();
+	}
+
+	//Copy constructor
+	State(State s) {
+		fillPowOf2();
+
+		//Copy the pieces
+		for(int i = 0; i < maxPieces; i++) {
+			pieces[i] = s.pieces[i];
+		}
+
+		//Copy the other game state variables
+		turn = s.turn;
+		movecounter = s.movecounter;
+		tt = s.tt;
+		book = s.book;
+		tablebase = s.tablebase;
+
+		fillMasks();
+	}
+
+	public void fillPowOf2() {
+
+		//Fill in the powOf2 array
+		powOf2[0] = 1;
+		powOf2[1] = 2;
+		powOf2[2] = 4;
+		powOf2[3] = 8;
+		powOf2[4] = 16;
+		powOf2[5] = 32;
+		powOf2[6] = 64;
+		powOf2[7] = 128;
+		powOf2[8] = 256;
+		powOf2[9] = 512;
+		powOf2[10] = 1024;
+		powOf2[11] = 2048;
+		powOf2[12] = 4096;
+		powOf2[13] = 8192;
+		powOf2[14] = 16384;
+		powOf2[15] = 32768;
+		powOf2[16] = 65536;
+		powOf2[17] = 131072;
+		powOf2[18] = 262144;
+		powOf2[19] = 524288;
+		powOf2[20] = 1048576;
+		powOf2[21] = 2097152;
+		powOf2[22] = 4194304;
+		powOf2[23] = 8388608;
+		powOf2[24] = 16777216;
+		powOf2[25] = 33554432;
+		powOf2[26] = 67108864;
+		powOf2[27] = 134217728;
+		powOf2[28] = 268435456;
+		powOf2[29] = 536870912;
+
+	}
+
+	public void setupBoard() {
+
+		//Starting with the white rook in square 0...
+		pieces[WROOK] = powOf2[0];
+		pieces[WKNIGHT] = powOf2[1];
+		pieces[WBISHOP] = powOf2[2];
+		pieces[WQUEEN] = powOf2[3];
+		pieces[WKING] = powOf2[4];
+		//White pawns...
+		pieces[WPAWN1] = powOf2[5];
+		pieces[WPAWN2] = powOf2[6];
+		pieces[WPAWN3] = powOf2[7];
+		pieces[WPAWN4] = powOf2[8];
+		pieces[WPAWN5] = powOf2[9];
+		//Spare whire queens
+		pieces[WQUEEN1] = -1;
+		pieces[WQUEEN2] = -1;
+		pieces[WQUEEN3] = -1;
+		pieces[WQUEEN4] = -1;
+		pieces[WQUEEN5] = -1;
+		//Black pawns...
+		pieces[BPAWN1] = powOf2[20];
+		pieces[BPAWN2] = powOf2[21];
+		pieces[BPAWN3] = powOf2[22];
+		pieces[BPAWN4] = powOf2[23];
+		pieces[BPAWN5] = powOf2[24];
+		//Black pieces, starting with the king in square 25...
+		pieces[BKING] = powOf2[25];
+		pieces[BQUEEN] = powOf2[26];
+		pieces[BBISHOP] = powOf2[27];
+		pieces[BKNIGHT] = powOf2[28];
+		pieces[BROOK] = powOf2[29];
+		//Spare black queens
+		pieces[BQUEEN1]= -1;
+		pieces[BQUEEN2]= -1;
+		pieces[BQUEEN3]= -1;
+		pieces[BQUEEN4]= -1;
+		pieces[BQUEEN5]= -1;
+
+		fillMasks();
+
+	}
+
+	//Back to the starting position with white to move.  The hash table
+	//and the move ordering history are kept.
+	public void newGame() {
+		turn = true;
+		movecounter = 0;
+		undoCount = 0;
+		setupBoard();
+	}
+
+	//Drop what earlier searches learned: the hash table, the killers and
+	//the move ordering history
+	public void forget() {
+		tt.clear();
+		for(int p = 0; p < maxPly; p++) {
+			killers[p][0] = 0;
+			killers[p][1] = 0;
+		}
+		for(int[] h : history) {
+			Arrays.fill(h, 0);
+		}
+	}
+
+	//Rebuild the occupancy masks, the square lookup and the hash from
+	//scratch out of the pieces array
+	public void fillMasks() {
+		hash = turn ? 0 : blackToMoveKey;
+		evalScore = 0;
+		whiteMask = 0;
+		blackMask = 0;
+		allMask = 0;
+		for(int t = 0; t < maxTypes; t++) {
+			typeMask[t] = 0;
+		}
+		for(int sq = 0; sq < maxSquares; sq++) {
+			squares[sq] = -1;
+		}
+
+		for(int i = 0; i < maxPieces; i++) {
+			if(pieces[i] != -1) {
+				toggleMasks(i, pieces[i]);
+				squares[Integer.numberOfTrailingZeros(pieces[i])] = (byte)i;
+			}
+		}
+	}
+
+	//Flip a piece's square in the occupancy masks and the hash, and add
+	//or take away its evaluation.  Used both to add a piece to a square
+	//and to take it away again: a piece is only ever added to an empty
+	//square, so an occupied square means it is being removed.
+	private void toggleMasks(int piece, int bit) {
+		int sq = Integer.numberOfTrailingZeros(bit);
+		hash ^= pieceKeys[piece][sq];
+		if((allMask & bit) != 0) {
+			evalScore -= pieceScore[piece][sq];
+		}
+		else {
+			evalScore += pieceScore[piece][sq];
+		}
+		flipMasks(piece, bit);
+	}
+
+	//The occupancy masks alone, for undoLastMove(), which puts the hash
+	//and evaluation back from the undo stack
+	private void flipMasks(int piece, int bit) {
+		if(piece < BKING) {
+			whiteMask ^= bit;
+		}
+		else {
+			blackMask ^= bit;
+		}
+		allMask ^= bit;
+		typeMask[typeOf[piece]] ^= bit;
+	}
+
+	//Take the bit board and translate it into a char array for screen display
+	//Only needed for printing; the search never looks at board[]
+	public void updateBoard() throws Exception {
+		for(int i = 0; i < maxSquares; i++) {
+			//getChar gives '.' for the -1 of an empty square
+			board[i] = getChar(squares[i]);
+		}
+	}
+
+
+
+	public char getChar(int piece) {
+		switch(piece) {
+			case WKING: return 'K';
+			case WQUEEN: case WQUEEN1: case WQUEEN2: case WQUEEN3: case WQUEEN4: case WQUEEN5: return 'Q';
+			case WBISHOP: return 'B';
+			case WKNIGHT: return 'N';
+			case WROOK: return 'R';
+			case WPAWN1: case WPAWN2: case WPAWN3: case WPAWN4: case WPAWN5: return 'P';
+			case BKING: return 'k';
+			case BQUEEN: case BQUEEN1: case BQUEEN2: case BQUEEN3: case BQUEEN4: case BQUEEN5: return 'q';
+			case BBISHOP: return 'b';
+			case BKNIGHT: return 'n';
+			case BROOK: return 'r';
+			case BPAWN1: case BPAWN2: case BPAWN3: case BPAWN4: case BPAWN5: return 'p';
+		}
+		return '.';
+	}
+
+
+
+	public void printBoard() {
+
+		//Leading blank line for readability
+		System.out.println();
+
+		System.out.print(movecounter);
+		if(turn) {
+			System.out.println(" W");
+		}
+		else {
+			System.out.println(" B");
+		}
+
+		for(int i = 5; i >= 0; i--) {
+			System.out.print( (i+1)+"    ");
+			for(int j = 0; j < 5; j++) {
+				System.out.print(board[(i*5)+j]+" ");
+			}
+			System.out.println();
+		}
+		System.out.println();
+		System.out.println("     a b c d e");
+
+	}
+
+
+	//Generate the root move list into moves/moveCount
+	public void moveGen() throws Exception {
+		moveCount = moveGen(moves);
+	}
+
+	//Generate every move for the side to move into the given list and
+	//return how many there are
+	public int moveGen(int[] list) throws Exception {
+		return moveGen(list, false);
+	}
+
+	//As above, but with capturesOnly set only captures and promotions are
+	//generated, for the quiescence search
+	public int moveGen(int[] list, boolean capturesOnly) throws Exception {
+
+		int lowbound = 0;
+		int highbound = 0;
+		int own = 0;
+		int enemy = 0;
+		//is it white or black's turn?
+		if(turn) {
+			//If white's turn, only deal with pieces 0-14
+			lowbound = 0;
+			highbound = 14;
+			own = whiteMask;
+			enemy = blackMask;
+		}
+		else {
+			//If black's turn, only deal with pieces 15-29
+			lowbound = 15;
+			highbound = 29;
+			own = blackMask;
+			enemy = whiteMask;
+		}
+
+		//Squares a piece may move to, and squares a pawn may push to
+		int targets = ~own;
+		int pushTargets = ~0;
+		if(capturesOnly) {
+			targets = enemy;
+			pushTargets = promotionSquares;
+		}
+
+		int n = 0;
+
+		//Generate moves for each piece that a player owns
+		for(int i = lowbound; i <= highbound; i++) {
+			//Only consider un-captured pieces
+			if(pieces[i] == -1) {
+				continue;
+			}
+
+			//Get the square number of the current piece
+			int thisSquare = Integer.numberOfTrailingZeros(pieces[i]);
+
+			switch(typeOf[i]) {
+
+				//Pawns push onto an empty square and capture diagonally
+				case PAWN: {
+					int side = turn ? 0 : 1;
+					n = addMoves(list, n, i, thisSquare, pawnPushes[side][thisSquare] & ~allMask & pushTargets);
+					n = addMoves(list, n, i, thisSquare, pawnCaptures[side][thisSquare] & enemy);
+					break;
+				}
+
+				//Kings and knights can go to any target not holding one of our own pieces
+				case KING:
+					n = addMoves(list, n, i, thisSquare, kingAttacks[thisSquare] & targets);
+					break;
+
+				case KNIGHT:
+					n = addMoves(list, n, i, thisSquare, knightAttacks[thisSquare] & targets);
+					break;
+
+				//Rooks, bishops and queens look their attacks up by occupancy
+				case ROOK:
+					n = addMoves(list, n, i, thisSquare, rookAttacks(thisSquare, allMask) & targets);
+					break;
+
+				case BISHOP:
+					n = addMoves(list, n, i, thisSquare, bishopAttacks(thisSquare, allMask) & targets);
+					break;
+
+				case QUEEN:
+					n = addMoves(list, n, i, thisSquare, (rookAttacks(thisSquare, allMask) |
+					                                      bishopAttacks(thisSquare, allMask)) & targets);
+					break;
+			}
+		}
+
+		return n;
+	}
+
+	//Add a move by piece to every square set in a 30 bit target mask,
+	//starting at position n of the list.  Returns the new list length.
+	private int addMoves(int[] list, int n, int piece, int fromSquare, int targets) {
+		while(targets != 0) {
+			list[n++] = encodeMove(piece, fromSquare, Integer.numberOfTrailingZeros(targets));
+			targets &= targets-1;
+		}
+		return n;
+	}
+
+	//Pack a move of the given piece, filling in the captured piece and
+	//the promotion flag from the current position
+	public int encodeMove(int piece, int fromSquare, int toSquare) {
+		boolean promotion = (typeOf[piece] == PAWN) && ((toSquare < 5) || (toSquare >= 25));
+		return Move.pack(fromSquare, toSquare, piece, findPiece(toSquare), promotion);
+	}
+
+	public void humanMove() throws Exception {
+
+		BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+
+		System.out.print("Enter move: ");
+		String move = reader.readLine();
+
+		try{
+			decodeMove(move);
+		}
+		catch(Exception e) {
+			System.out.println("Incorrect move format, please try again (e.g. a0-a1) ");
+		}
+
+	}
+
+	public void decodeMove(String move) throws Exception {
+
+		if(move.length() != 5) {
+			throw new Exception("move string wrong length");
+		}
+
+		char column = move.charAt(0);
+		String row = move.substring(1,2);
+		int x = 0;
+		int y;
+		switch(column) {
+			case 'a': x = 0; break;
+			case 'b': x = 1; break;
+			case 'c': x = 2; break;
+			case 'd': x = 3; break;
+			case 'e': x = 4; break;
+		}
+		y = Integer.parseInt(row)-1;
+
+		int fromSquare = (y*5)+x;
+
+		column = move.charAt(3);
+		row = move.substring(4,5);
+
+		switch(column) {
+			case 'a': x = 0; break;
+			case 'b': x = 1; break;
+			case 'c': x = 2; break;
+			case 'd': x = 3; break;
+			case 'e': x = 4; break;
+		}
+		y = Integer.parseInt(row)-1;
+		int toSquare = (y*5)+x;
+		if((fromSquare>=0) && (fromSquare < maxSquares) && (toSquare >=0) && (toSquare < maxSquares)) {
+			int piece = findPiece(fromSquare);
+			if(piece == -1) {
+				throw new Exception("no piece on the from square");
+			}
+			processMove(encodeMove(piece, fromSquare, toSquare));
+		}
+
+	}
+
+	//The legal move written as text, e.g. b2-b3 or b2b3, or 0 if there
+	//is no such move.  Overwrites the root move list.
+	public int parseMove(String text) throws Exception {
+		if(text.length() == 4) {
+			text = text.substring(0, 2)+"-"+text.substring(2);
+		}
+		int n = moveGen(moveStack[0]);
+		for(int i = 0; i < n; i++) {
+			if(new Move(moveStack[0][i]).toString().equals(text)) {
+				return moveStack[0][i];
+			}
+		}
+		return 0;
+	}
+
+	//The line the search expects: first, then the hash move of every
+	//position after it for as long as the table has a legal one.  The
+	//lists of the plies below the root are used to check the moves, so the
+	//root list is left alone.
+	public int[] principalVariation(int first, int max) throws Exception {
+		int[] pv = new int[max];
+		int n = 0;
+		int m = first;
+		while( (m != 0) && (n < max) ) {
+			int[] list = moveStack[n+1];
+			int count = moveGen(list);
+			boolean legal = false;
+			for(int i = 0; (i < count) && !legal; i++) {
+				legal = (list[i] == m);
+			}
+			if(!legal) {
+				break;
+			}
+			processMove(m);
+			pv[n++] = m;
+			if( (pieces[WKING] == -1) || (pieces[BKING] == -1) ) {
+				break;
+			}
+			long entry = tt.probe(hash);
+			m = (entry != 0) ? TranspositionTable.move(entry) : 0;
+		}
+		for(int i = 0; i < n; i++) {
+			undoLastMove();
+		}
+		return Arrays.copyOf(pv, n);
+	}
+
+	public void undoLastMove() throws Exception {
+
+		if(undoCount == 0) {
+			throw new Exception("no move to undo");
+		}
+		int n = --undoCount;
+		int move = undoMoves[n];
+
+		int piece = Move.piece(move);
+		int capturedPiece = Move.captured(move);
+		int fromBit = powOf2[Move.from(move)];
+		int toBit = powOf2[Move.to(move)];
+
+		//Take the piece off the target square.  A promoted pawn is
+		//standing there as a queen, so that queen slot is emptied instead.
+		if(Move.isPromotion(move)) {
+			int queen = undoQueens[n];
+			flipMasks(queen, toBit);
+			pieces[queen] = -1;
+		}
+		else {
+			flipMasks(piece, toBit);
+		}
+		squares[Move.to(move)] = -1;
+
+		//and put it back where it came from
+		flipMasks(piece, fromBit);
+		pieces[piece] = fromBit;
+		squares[Move.from(move)] = (byte)piece;
+
+		if(capturedPiece != -1) {
+			pieces[capturedPiece] = toBit;
+			flipMasks(capturedPiece, toBit);
+			squares[Move.to(move)] = (byte)capturedPiece;
+		}
+
+		turn = !turn;
+		movecounter = undoCounters[n];
+		hash = undoHashes[n];
+		evalScore = undoEvals[n];
+	}
+
+
+	public void processMove(int move) throws Exception {
+
+		if(undoCount == undoMoves.length) {
+			growUndo();
+		}
+		int n = undoCount++;
+		undoMoves[n] = move;
+		undoCounters[n] = movecounter;
+		undoHashes[n] = hash;
+		undoEvals[n] = evalScore;
+
+		int piece = Move.piece(move);
+		int piece2 = Move.captured(move);
+		int fromBit = powOf2[Move.from(move)];
+		int toBit = powOf2[Move.to(move)];
+
+		//Check to make sure the piece really is on the fromSquare
+		if(pieces[piece] != fromBit) {
+			undoCount--;
+			updateBoard();
+			printBoard();
+			throw new Exception();
+		}
+
+		//Take off any piece at the destination
+		if(piece2 != -1) {
+			pieces[piece2] = -1;
+			toggleMasks(piece2, toBit);
+			movecounter = 0;
+		}
+
+		//Set the moving piece to the new square
+		toggleMasks(piece, fromBit);
+		toggleMasks(piece, toBit);
+		pieces[piece] = toBit;
+		squares[Move.from(move)] = -1;
+		squares[Move.to(move)] = (byte)piece;
+
+		//switch the turn to the next player
+		turn = !turn;
+		hash ^= blackToMoveKey;
+		//If this becomes white's move, advance the move counter;
+		if(turn) {
+			movecounter++;
+		}
+
+		//Check for pawn promotion
+		if(Move.isPromotion(move)) {
+			if(piece < BKING) {
+				undoQueens[n] = promote(piece, WQUEEN, WQUEEN1);
+			}
+			else {
+				undoQueens[n] = promote(piece, BQUEEN, BQUEEN1);
+			}
+		}
+
+	}
+
+	private void growUndo() {
+		int size = undoMoves.length*2;
+		undoMoves = Arrays.copyOf(undoMoves, size);
+		undoQueens = Arrays.copyOf(undoQueens, size);
+		undoCounters = Arrays.copyOf(undoCounters, size);
+		undoHashes = Arrays.copyOf(undoHashes, size);
+		undoEvals = Arrays.copyOf(undoEvals, size);
+	}
+
+	//Hand a pawn's square over to the first queen slot that is not
+	//already being used, trying the original queen first, and return it
+	private int promote(int pawn, int queen, int firstSpare) {
+		int q = queen;
+		if(pieces[q] != -1) {
+			for(q = firstSpare; q < firstSpare+5; q++) {
+				if(pieces[q] == -1) {
+					break;
+				}
+			}
+		}
+		toggleMasks(pawn, pieces[pawn]);
+		toggleMasks(q, pieces[pawn]);
+		squares[Integer.numberOfTrailingZeros(pieces[pawn])] = (byte)q;
+		pieces[q] = pieces[pawn];
+		pieces[pawn] = -1;
+		return q;
+	}
+
+	public void randomMove() throws Exception{
+
+		int rand;
+		if(moveCount >0) {
+
+			//Just pick a random move out of the many possible in the moves list
+			rand = rng.nextInt(moveCount);
+
+		}
+		else {
+			throw new Exception("No Moves available");
+		}
+
+		try {
+			processMove(moves[rand]);
+		}
+		catch(Exception e) {
+			System.out.println("Bad move attempted.");
+			rand = rng.nextInt(moveCount);
+		}
+
+	}
+
+	//Start searching the position after the opponent's expected reply,
+	//the hash move here, until makeMove() is called.  Does nothing if
+	//there is no expected reply or a ponder search is already running.
+	public void startPondering() throws Exception {
+		if( (ponder != null) || (pieces[WKING] == -1) || (pieces[BKING] == -1) ) {
+			return;
+		}
+		long entry = tt.probe(hash);
+		int reply = (entry != 0) ? TranspositionTable.move(entry) : 0;
+		int n = moveGen(moveStack[1]);
+		for(int i = 0; i < n; i++) {
+			if(moveStack[1][i] == reply) {
+				ponder = new Ponder(this, reply);
+				return;
+			}
+		}
+	}
+
+	public void makeMove() throws Exception {
+
+		if(moveCount == 0) {
+			throw new Exception("No Moves available");
+		}
+
+		int best = 0;
+		float score = 0;
+		if(book != null) {
+			best = book.probe(this);
+		}
+		if(best == 0) {
+			best = tablebaseMove();
+			if(best != 0) {
+				score = tablebaseScore(tablebase.probe(this), 0);
+			}
+		}
+
+		if(best != 0) {
+			//Straight out of the book or the tablebases
+			if(ponder != null) {
+				ponder.cancel();
+				ponder = null;
+			}
+			bestScore = score;
+			completedDepth = 0;
+			nodes = 0;
+		}
+		else if( (ponder != null) && (undoCount > 0) && (undoMoves[undoCount-1] == ponder.reply) ) {
+			//The opponent played the expected move, so the ponder search is
+			//already on this position: give it the normal budget and wait
+			best = ponder.hit(moveLimits, this);
+			ponder = null;
+		}
+		else {
+			if(ponder != null) {
+				ponder.cancel();
+				ponder = null;
+			}
+			best = think(moveLimits.copy());
+		}
+
+		MoveChosenEvent event = new MoveChosenEvent();
+		if(event.shouldCommit()) {
+			event.move = new Move(best).toString();
+			event.score = bestScore;
+			event.depth = completedDepth;
+			event.movecounter = movecounter;
+			event.commit();
+		}
+
+		try {
+			System.out.println("Nodes searched:"+nodes+" Depth: "+completedDepth);
+			System.out.println("Move: "+new Move(best)+" Score: "+(bestScore+0.0f));
+			processMove(best);
+		}
+		catch(Exception e) {
+			System.out.println("Bad move attempted");
+		}
+	}
+
+	//Search the root list until the limits run out and return the best
+	//move, with its score in bestScore, the depth it was found at in
+	//completedDepth and the nodes searched by all threads in nodes.
+	//
+	//With more than one thread this is Lazy SMP: helper threads run the
+	//same iterative deepening on their own copies of the position and
+	//share only the transposition table, so each finds work the others
+	//have already done.  Odd helpers start one ply deeper to spread them
+	//out.  The result comes from whichever thread finished the deepest
+	//iteration, the main thread winning ties.
+	public int think(SearchLimits l) throws Exception {
+
+		l.start();
+		tt.newSearch();
+		long start = System.nanoTime();
+
+		SearchStartedEvent started = new SearchStartedEvent();
+		if(started.shouldCommit()) {
+			started.depth = l.depth;
+			started.movetime = l.movetime;
+			started.nodes = l.nodes;
+			started.threads = (rootPool != null) ? rootPool.getParallelism() : threads;
+			started.commit();
+		}
+		SearchFinishedEvent finished = new SearchFinishedEvent();
+		finished.begin();
+
+		if( (rootPool != null) && (l.depth > 0) && !l.infinite ) {
+			int best = RootSplit.search(this, l, rootPool);
+			SearchMetrics.global.searchFinished(System.nanoTime()-start);
+			searchFinished(finished, best);
+			return best;
+		}
+
+		SearchHelper[] helpers = new SearchHelper[Math.max(threads-1, 0)];
+		for(int i = 0; i < helpers.length; i++) {
+			helpers[i] = new SearchHelper(new State(this), l, 1+((i+1) & 1));
+		}
+
+		int best = deepen(l, 1);
+		float score = bestScore;
+		int depth = completedDepth;
+
+		//The main thread is done, so the helpers are too
+		l.stop = true;
+		for(int i = 0; i < helpers.length; i++) {
+			helpers[i].thread.join();
+			State h = helpers[i].state;
+			nodes += h.nodes;
+			if( (h.completedDepth > depth) && (helpers[i].best != 0) ) {
+				best = helpers[i].best;
+				score = h.bestScore;
+				depth = h.completedDepth;
+			}
+		}
+
+		bestScore = score;
+		completedDepth = depth;
+		SearchMetrics.global.searchFinished(System.nanoTime()-start);
+		searchFinished(finished, best);
+		return best;
+	}
+
+	private void searchFinished(SearchFinishedEvent e, int best) {
+		if(e.shouldCommit()) {
+			e.depth = completedDepth;
+			e.score = bestScore;
+			e.nodes = nodes;
+			e.move = new Move(best).toString();
+			e.commit();
+		}
+	}
+
+	//Iterative deepening over the root list, from firstDepth on, until the
+	//limits run out.  Returns the best move of the last iteration that
+	//finished, with its score in bestScore and its depth in completedDepth.
+	public int deepen(SearchLimits l, int firstDepth) throws Exception {
+		return deepen(l, firstDepth, maxPly-1);
+	}
+
+	//The same, stopping after lastDepth at the latest
+	public int deepen(SearchLimits l, int firstDepth, int lastDepth) throws Exception {
+
+		limits = l;
+		aborted = false;
+		nodes = 0;
+
+		//Killers belong to the last position, history only fades
+		for(int p = 0; p < maxPly; p++) {
+			killers[p][0] = 0;
+			killers[p][1] = 0;
+		}
+		ageHistory();
+
+		//Something to play even if the first iteration does not finish
+		int best = moves[0];
+		float score = 0;
+		completedDepth = 0;
+
+		//Nodes of the last two iterations, for the branching factor
+		long lastNodes = 0;
+		long prevNodes = 0;
+
+		//The depth limit is read again every iteration, as a ponder hit
+		//can set one while the search is running
+		for(int d = firstDepth; d <= lastDepth; d++) {
+			if( (l.depth > 0) && (d > l.depth) ) {
+				break;
+			}
+			long start = System.nanoTime();
+			long before = nodes;
+			IterationEvent event = new IterationEvent();
+			event.begin();
+			int m = searchRoot(d);
+			if(aborted) {
+				break;
+			}
+			best = m;
+			score = bestScore;
+			completedDepth = d;
+			l.iterationDone(d);
+			if(!helper) {
+				SearchMetrics.global.iterationFinished(d, System.nanoTime()-start);
+				prevNodes = lastNodes;
+				lastNodes = nodes-before;
+				if(info != null) {
+					info.println(Protocol.info(this, l, d, score, m));
+				}
+				if(event.shouldCommit()) {
+					event.depth = d;
+					event.score = score;
+					event.nodes = nodes-before;
+					event.move = new Move(m).toString();
+					event.commit();
+				}
+			}
+
+			//A forced win or loss will not change with more depth, and
+			//another iteration started after half the time will not finish
+			if(!l.infinite) {
+				if(Math.abs(score) > WIN_BOUND) {
+					break;
+				}
+				if( (l.movetime > 0) && (l.elapsed()*2 > l.movetime) ) {
+					break;
+				}
+			}
+		}
+
+		flushMetrics();
+		if(prevNodes > 0) {
+			SearchMetrics.global.branchingFactor((double)lastNodes/prevNodes);
+		}
+
+		//An infinite search only ends on a stop from outside
+		while(l.infinite && !l.stop) {
+			Thread.sleep(1);
+		}
+
+		bestScore = score;
+		return best;
+	}
+
+	//Check the limits every so many nodes; the clock is too slow to read
+	//at every node
+	private void checkLimits() {
+		if((nodes & 1023) == 0) {
+			aborted = limits.exceeded(1024);
+			flushMetrics();
+		}
+	}
+
+	//Hand this thread's counts over to SearchMetrics
+	void flushMetrics() {
+		SearchMetrics m = SearchMetrics.global;
+		m.nodes.add(statNodes);
+		m.qnodes.add(statQNodes);
+		m.probes.add(statProbes);
+		m.hits.add(statHits);
+		m.cutoffs.add(statCutoffs);
+		m.firstCutoffs.add(statFirstCutoffs);
+		statNodes = 0;
+		statQNodes = 0;
+		statProbes = 0;
+		statHits = 0;
+		statCutoffs = 0;
+		statFirstCutoffs = 0;
+	}
+
+	//Search every move in the root list to the given depth and return the
+	//best one.  Its exact score is left in bestScore.
+	public int searchRoot(int depth) throws Exception {
+
+		float alpha = -INFINITY;
+		float beta = INFINITY;
+		int best = 0;
+
+		long entry = tt.probe(hash);
+		statProbes++;
+		if(entry != 0) {
+			statHits++;
+		}
+		scoreMoves(moves, scoreStack[0], moveCount, (entry != 0) ? TranspositionTable.move(entry) : 0, 0);
+
+		for(int i = 0; i < moveCount; i++) {
+			int m = pickMove(moves, scoreStack[0], moveCount, i);
+
+			processMove(m);
+			float val;
+			if(i == 0) {
+				val = -negamax(depth-1, 1, -beta, -alpha);
+			}
+			else {
+				//Prove the move is no better with a zero width window
+				//first, and only search it properly if it is
+				val = -negamax(depth-1, 1, -Math.nextUp(alpha), -alpha);
+				if( (val > alpha) && !aborted ) {
+					val = -negamax(depth-1, 1, -beta, -alpha);
+				}
+			}
+			undoLastMove();
+
+			//The result of an unfinished iteration is thrown away by think()
+			if(aborted) {
+				return best;
+			}
+
+			if(val > alpha) {
+				alpha = val;
+				best = m;
+			}
+		}
+
+		bestScore = alpha;
+		tt.store(hash, best, alpha, depth, TranspositionTable.EXACT);
+		return best;
+	}
+
+	//Fail-soft alpha-beta negamax with principal variation search.  Scores
+	//are from the point of view of the side to move.  ply is the distance
+	//from the root and selects this node's move buffer.
+	public float negamax(int depth, int ply, float alpha, float beta) throws Exception{
+
+		//At the horizon, play out the captures before trusting evaluate()
+		if(depth <= 0) {
+			return quiesce(ply, alpha, beta);
+		}
+
+		nodes++;
+		statNodes++;
+
+		//Once the budget is gone every node returns straight away, and
+		//its caller ignores the value
+		checkLimits();
+		if(aborted) {
+			return 0;
+		}
+
+		//The side to move has had its king taken, so the game is lost
+		if(pieces[turn ? WKING : BKING] == -1) {
+			return -(WIN-ply);
+		}
+		//Too many moves is a draw
+		if(movecounter > 40) {
+			return 0;
+		}
+		if(ply >= maxPly-1) {
+			return evaluate();
+		}
+
+		//With few enough pieces the tablebases know the result, unless the
+		//40 move rule would end the game before it
+		if( (tablebase != null) && (Integer.bitCount(allMask) <= tablebase.maxPieces) ) {
+			int v = tablebase.probe(this);
+			if(tablebaseHolds(v)) {
+				return tablebaseScore(v, ply);
+			}
+		}
+
+		//Use what is known from earlier searches of this position.  The
+		//draw counter is not part of the hash, so this can lose track of
+		//the 40 move rule near its end.
+		float alphaOrig = alpha;
+		int hashMove = 0;
+		long entry = tt.probe(hash);
+		statProbes++;
+		if(entry != 0) {
+			statHits++;
+			hashMove = TranspositionTable.move(entry);
+			if(TranspositionTable.depth(entry) >= depth) {
+				float score = fromTT(TranspositionTable.score(entry), ply);
+				int bound = TranspositionTable.bound(entry);
+				if( (bound == TranspositionTable.EXACT) ||
+					((bound == TranspositionTable.LOWER) && (score >= beta)) ||
+					((bound == TranspositionTable.UPPER) && (score <= alpha)) ) {
+					return score;
+				}
+			}
+		}
+
+		int[] list = moveStack[ply];
+		int n = moveGen(list);
+
+		//No moves at all counts as a draw
+		if(n == 0) {
+			return 0;
+		}
+
+		int[] keys = scoreStack[ply];
+		scoreMoves(list, keys, n, hashMove, ply);
+
+		float best = -INFINITY;
+		int bestmove = 0;
+		for(int i = 0; i < n; i++) {
+
+			processMove(pickMove(list, keys, n, i));
+			float score;
+			if(i == 0) {
+				score = -negamax(depth-1, ply+1, -beta, -alpha);
+			}
+			else {
+				score = -negamax(depth-1, ply+1, -Math.nextUp(alpha), -alpha);
+				if( (score > alpha) && (score < beta) && !aborted ) {
+					score = -negamax(depth-1, ply+1, -beta, -alpha);
+				}
+			}
+			undoLastMove();
+
+			if(aborted) {
+				return 0;
+			}
+
+			if(score > best) {
+				best = score;
+				bestmove = list[i];
+				if(score > alpha) {
+					alpha = score;
+					if(alpha >= beta) {
+						statCutoffs++;
+						if(i == 0) {
+							statFirstCutoffs++;
+						}
+						if(Move.captured(list[i]) == -1) {
+							goodQuietMove(list[i], ply, depth);
+						}
+						break;
+					}
+				}
+			}
+		}
+
+		int bound = TranspositionTable.EXACT;
+		if(best <= alphaOrig) {
+			bound = TranspositionTable.UPPER;
+		}
+		else if(best >= beta) {
+			bound = TranspositionTable.LOWER;
+		}
+		tt.store(hash, bestmove, toTT(best, ply), depth, bound);
+
+		return best;
+
+	}
+
+	//Capture-only search below the horizon.  The side to move may always
+	//"stand pat" on the static evaluation instead of capturing, captures
+	//that cannot lift the score to alpha even if they win their victim
+	//outright are skipped (delta pruning), and so are captures that lose
+	//material by static exchange evaluation.
+	public float quiesce(int ply, float alpha, float beta) throws Exception {
+		nodes++;
+		statNodes++;
+		statQNodes++;
+
+		checkLimits();
+		if(aborted) {
+			return 0;
+		}
+
+		if(pieces[turn ? WKING : BKING] == -1) {
+			return -(WIN-ply);
+		}
+		if(movecounter > 40) {
+			return 0;
+		}
+
+		float standPat = evaluate();
+		if( (standPat >= beta) || (ply >= maxPly-1) ) {
+			return standPat;
+		}
+		if(standPat > alpha) {
+			alpha = standPat;
+		}
+
+		int[] list = moveStack[ply];
+		int[] keys = scoreStack[ply];
+		int n = moveGen(list, true);
+		scoreMoves(list, keys, n, 0, ply);
+
+		float best = standPat;
+		for(int i = 0; i < n; i++) {
+			int m = pickMove(list, keys, n, i);
+			int captured = Move.captured(m);
+
+			//Taking the king always has to be looked at
+			if( (captured == -1) || (typeOf[captured] != KING) ) {
+				int gain = (captured == -1) ? 0 : valueOf(captured);
+				if(Move.isPromotion(m)) {
+					gain += valueOf(WQUEEN)-valueOf(WPAWN1);
+				}
+				if(standPat+((gain+DELTA_MARGIN)/24.0f) <= alpha) {
+					continue;
+				}
+				if(see(m) < 0) {
+					continue;
+				}
+			}
+
+			processMove(m);
+			float score = -quiesce(ply+1, -beta, -alpha);
+			undoLastMove();
+
+			if(aborted) {
+				return 0;
+			}
+
+			if(score > best) {
+				best = score;
+				if(score > alpha) {
+					alpha = score;
+					if(alpha >= beta) {
+						break;
+					}
+				}
+			}
+		}
+
+		return best;
+	}
+
+	//Static exchange evaluation: the material the side making this move
+	//wins, in valueOf units, if both sides keep recapturing on the target
+	//square with their least valuable piece for as long as that pays.
+	//Sliders uncovered by a capture join in.
+	public int see(int m) {
+		int to = Move.to(m);
+		int occupied = allMask & ~powOf2[Move.from(m)];
+		int captured = Move.captured(m);
+		int attackerType = typeOf[Move.piece(m)];
+		boolean white = Move.piece(m) < BKING;
+
+		int d = 0;
+		seeGain[0] = (captured == -1) ? 0 : seeValue(typeOf[captured]);
+		int victimType = (captured == -1) ? -1 : typeOf[captured];
+
+		//Recapture while the side to move has an attacker left.  Taking
+		//a king ends the game, so nothing follows that.
+		while( (victimType != KING) && (d < seeGain.length-1) ) {
+			white = !white;
+			int attackers = attackersTo(to, occupied) & occupied & (white ? whiteMask : blackMask);
+			if(attackers == 0) {
+				break;
+			}
+
+			//What this side has if it takes the last piece to capture
+			d++;
+			seeGain[d] = seeValue(attackerType)-seeGain[d-1];
+			victimType = attackerType;
+
+			//Least valuable attacker first
+			int next = 0;
+			for(int t = 0; t < maxTypes; t++) {
+				next = attackers & typeMask[seeOrder[t]];
+				if(next != 0) {
+					attackerType = seeOrder[t];
+					break;
+				}
+			}
+			occupied &= ~(next & -next);
+		}
+
+		//Either side can stop recapturing when that is better for them
+		while(d > 0) {
+			seeGain[d-1] = -Math.max(-seeGain[d-1], seeGain[d]);
+			d--;
+		}
+		return seeGain[0];
+	}
+
+	//Every piece of either color attacking a square for a given occupancy
+	public int attackersTo(int sq, int occupied) {
+		int rooks = typeMask[ROOK] | typeMask[QUEEN];
+		int bishops = typeMask[BISHOP] | typeMask[QUEEN];
+		return (pawnCaptures[1][sq] & typeMask[PAWN] & whiteMask) |
+			   (pawnCaptures[0][sq] & typeMask[PAWN] & blackMask) |
+			   (knightAttacks[sq] & typeMask[KNIGHT]) |
+			   (kingAttacks[sq] & typeMask[KING]) |
+			   (rookAttacks(sq, occupied) & rooks) |
+			   (bishopAttacks(sq, occupied) & bishops);
+	}
+
+	//Piece values for exchanges.  Slots 0-5 hold one of each type in type
+	//order, so valueOf works on types too; the king, which valueOf leaves
+	//at 0, is worth more than anything it could win.
+	private int seeValue(int type) {
+		return (type == KING) ? 100 : valueOf(type);
+	}
+
+	//Fill in a sort key for every move: the hash move first, then
+	//captures and promotions by most valuable victim / least valuable
+	//attacker, then this ply's killers, then the rest by history
+	private void scoreMoves(int[] list, int[] keys, int n, int hashMove, int ply) {
+		for(int i = 0; i < n; i++) {
+			int m = list[i];
+			int captured = Move.captured(m);
+			if(m == hashMove) {
+				keys[i] = HASH_MOVE_KEY;
+			}
+			else if( (captured != -1) || Move.isPromotion(m) ) {
+				int victim = 0;
+				if(captured != -1) {
+					victim = (typeOf[captured] == KING) ? 100 : valueOf(captured);
+				}
+				if(Move.isPromotion(m)) {
+					victim += valueOf(WQUEEN)-valueOf(WPAWN1);
+				}
+				keys[i] = CAPTURE_KEY+(victim*16)-valueOf(Move.piece(m));
+			}
+			else if(m == killers[ply][0]) {
+				keys[i] = KILLER_KEY+1;
+			}
+			else if(m == killers[ply][1]) {
+				keys[i] = KILLER_KEY;
+			}
+			else {
+				keys[i] = history[kindOf(Move.piece(m))][Move.to(m)];
+			}
+		}
+	}
+
+	//Selection sort one step at a time: swap the best remaining move into
+	//position i and return it.  Moves after a cutoff are never sorted.
+	private int pickMove(int[] list, int[] keys, int n, int i) {
+		int bestIndex = i;
+		for(int j = i+1; j < n; j++) {
+			if(keys[j] > keys[bestIndex]) {
+				bestIndex = j;
+			}
+		}
+		int m = list[bestIndex];
+		list[bestIndex] = list[i];
+		list[i] = m;
+		int k = keys[bestIndex];
+		keys[bestIndex] = keys[i];
+		keys[i] = k;
+		return m;
+	}
+
+	//A quiet move caused a cutoff: make it this ply's first killer and
+	//raise its history, deeper cutoffs counting for more
+	private void goodQuietMove(int m, int ply, int depth) {
+		if(killers[ply][0] != m) {
+			killers[ply][1] = killers[ply][0];
+			killers[ply][0] = m;
+		}
+		int[] h = history[kindOf(Move.piece(m))];
+		h[Move.to(m)] += depth*depth;
+		if(h[Move.to(m)] > HISTORY_MAX) {
+			ageHistory();
+		}
+	}
+
+	//Halve every history score so old results fade
+	private void ageHistory() {
+		for(int k = 0; k < 2*maxTypes; k++) {
+			for(int sq = 0; sq < maxSquares; sq++) {
+				history[k][sq] >>= 1;
+			}
+		}
+	}
+
+	//Piece kind 0-11 of a slot: the piece type, plus maxTypes for black
+	static int kindOf(int piece) {
+		return ((piece < BKING) ? 0 : maxTypes)+typeOf[piece];
+	}
+
+	//Win scores count plies from the root.  The table stores them counted
+	//from the position itself so they stay right wherever it is reached.
+	static float toTT(float score, int ply) {
+		if(score > WIN_BOUND) {
+			return score+ply;
+		}
+		if(score < -WIN_BOUND) {
+			return score-ply;
+		}
+		return score;
+	}
+
+	static float fromTT(float score, int ply) {
+		if(score > WIN_BOUND) {
+			return score-ply;
+		}
+		if(score < -WIN_BOUND) {
+			return score+ply;
+		}
+		return score;
+	}
+
+	//Does the tablebase result v stand here: a draw, or a win or loss
+	//that comes before the 40 move rule ends the game?
+	boolean tablebaseHolds(int v) {
+		return (v == 0) || ((v != Tablebase.NONE) && (movecounter+((Math.abs(v)+1)/2) <= 40));
+	}
+
+	//The tablebases' move at the root, or 0 if they do not know the
+	//position or their result would not stand, and the search must choose
+	int tablebaseMove() throws Exception {
+		if( (tablebase == null) || !tablebaseHolds(tablebase.probe(this)) ) {
+			return 0;
+		}
+		return tablebase.bestMove(this);
+	}
+
+	//A tablebase result, n plies to a win (n > 0) or a loss (n < 0), as a
+	//search score at the given ply
+	static float tablebaseScore(int n, int ply) {
+		if(n > 0) {
+			return WIN-(ply+n);
+		}
+		if(n < 0) {
+			return -(WIN-(ply-n));
+		}
+		return 0;
+	}
+
+	//Finds what square 0-29 a given power of two corresponds to
+	//Done by a simple binary search to save time
+	public int getSquareNum(int number, int min, int max) {
+		if( (number > 0) && (number <=powOf2[29]) ) {
+		int avg = (min+max)/2;
+		if(powOf2[avg] == number) {
+			return avg;
+		}
+		else {
+			if(powOf2[avg] > number) {
+				return getSquareNum(number, min, avg-1);
+			}
+			if(powOf2[avg] < number) {
+				return getSquareNum(number, avg+1, max);
+			}
+		}
+		}
+
+		//If we get to this point, something went wrong, so return a -1;
+		//Be sure to always check for a -1 result when calling this function.
+		return -1;
+	}
+
+	//Given a square number 0-29, find if there is a piece occupying it.
+	//Returns the piece slot, or -1 if no piece is there.
+	public int findPiece(int squareNum) {
+		return squares[squareNum];
+	}
+
+
+	public boolean gameOver() {
+
+		//If it's white's turn, check for a white king...
+		if(turn) {
+			for(int i = 0; i < 11; i++) {
+				if(pieces[WKING] == -1) {
+					System.out.println("No White King");
+					return true;
+				}
+			}
+		}
+
+		//If it's black's turn, check for a black king...
+		else if(!turn) {
+			for(int i = 0; i < 11; i++) {
+				if(pieces[BKING] == -1) {
+					System.out.println("No Black King");
+					return true;
+				}
+			}
+		}
+
+		//Check for too many moves
+		if(movecounter > 40) {
+			System.out.println("Too many moves");
+			return true;
+		}
+
+		//Otherwise, the game is still on
+		return false;
+	}
+
+	//Returns the evaluation of a state
+	//For now a very simple evaluation that simply
+	//considers the "value" of the pieces and where they stand
+	public float evaluate() {
+
+		//First check for a sure victory by way of a captured king
+		if(turn) {
+			if(pieces[BKING] == -1) {
+				value = 1;
+				return 1;
+			}
+			if(pieces[WKING] == -1) {
+				value = -1;
+				return -1;
+			}
+		}
+		else {
+			if(pieces[WKING] == -1) {
+				value = 1;
+				return 1;
+			}
+			if(pieces[BKING] == -1) {
+				value = -1;
+				return -1;
+			}
+		}
+
+		//Material and piece-square values are summed up as pieces move,
+		//from white's side, in eighths of a pawn
+		int total = turn ? evalScore : -evalScore;
+
+		//Setting the divide-by factor to 24, as I've reduced the
+		//value of a bishop from the standard 3.
+
+		value = (total/(24.0f*EVAL_SCALE));
+		return value;
+
+	}
+
+	//These values could stand to be tuned
+	public static int valueOf(int piece) {
+
+		int v = 0;
+
+		switch(piece) {
+			case WROOK: case BROOK: 	v = 5; break;
+			case WKNIGHT: case BKNIGHT: v = 3; break;
+			case WBISHOP: case BBISHOP: v = 1; break;
+			case WQUEEN: case BQUEEN: case WQUEEN1: case WQUEEN2:
+			case WQUEEN3: case WQUEEN4: case WQUEEN5: case BQUEEN1:
+			case BQUEEN2: case BQUEEN3:	case BQUEEN4: case BQUEEN5:	v = 9; break;
+			case WPAWN1: case WPAWN2: case WPAWN3: case WPAWN4:
+			case WPAWN5:  case BPAWN1: case BPAWN2: case BPAWN3:
+			case BPAWN4: case BPAWN5:	v = 1; break;
+		}
+
+		return v;
+	}
+
+
+}
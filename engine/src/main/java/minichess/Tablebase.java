@@ -0,0 +1,564 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+//Endgame tablebases for positions of up to four pieces, kings included,
+//solved by retrograde analysis.
+//
+//A table holds one byte for every placement of its pieces and side to
+//move: n > 0 if the side to move captures the king in n plies with best
+//play, -n if it loses in n plies, and 0 for a draw (or an impossible
+//placement).  The 40 move rule is not taken into account.
+//
+//Tables are named after their material, e.g. KQvKR.tb, with the pieces of
+//each side in the order Q B N R P.  Only one of a material and its colour
+//reversed twin is stored: positions of the other are looked up with the
+//board turned round.  The pieces are indexed white king, black king,
+//white pieces, black pieces, each by square, then side to move:
+//
+//  index = ((wk*30 + bk)*30 + p1)*30 + p2 ...)*2 + (white to move ? 0 : 1)
+//
+//  java minichess.Tablebase <dir> [-pieces <n>] [-threads <n>]
+//
+//generates every table up to n pieces into dir.
+class Tablebase {
+
+	static final int NONE = Integer.MIN_VALUE;
+	static final int MAX_PIECES = 4;
+
+	static final char[] LETTERS = { 'K', 'Q', 'B', 'N', 'R', 'P' };
+
+	//Tables by material key, see key()
+	final ByteBuffer[] tables = new ByteBuffer[36*36];
+	int maxPieces = 0;
+
+	//The extra (non king) pieces of a side, as a number: the types, at
+	//most two, in ascending order, each written as type 1-5 in base 6
+	static int code(int[] types, int n) {
+		int c = 0;
+		for(int i = 0; i < n; i++) {
+			c = (c*6)+types[i];
+		}
+		return c;
+	}
+
+	static int key(int whiteCode, int blackCode) {
+		return (whiteCode*36)+blackCode;
+	}
+
+	//Is the material stored with these colours, or turned round?  More
+	//pieces first, then lower type numbers.
+	static boolean canonical(int whiteCount, int whiteCode, int blackCount, int blackCode) {
+		if(whiteCount != blackCount) {
+			return whiteCount > blackCount;
+		}
+		return whiteCode <= blackCode;
+	}
+
+	static String name(int[] white, int wn, int[] black, int bn) {
+		StringBuilder sb = new StringBuilder("K");
+		for(int i = 0; i < wn; i++) {
+			sb.append(LETTERS[white[i]]);
+		}
+		sb.append("vK");
+		for(int i = 0; i < bn; i++) {
+			sb.append(LETTERS[black[i]]);
+		}
+		return sb.toString();
+	}
+
+	static int mirror(int sq) {
+		return ((5-(sq/5))*5)+(sq%5);
+	}
+
+	//Map every table file found in dir
+	static Tablebase open(String dir) throws IOException {
+		Tablebase tb = new Tablebase();
+		File[] files = new File(dir).listFiles();
+		if(files == null) {
+			throw new IOException("no tablebase directory "+dir);
+		}
+		for(File f : files) {
+			String name = f.getName();
+			if(!name.endsWith(".tb") || !name.startsWith("K")) {
+				continue;
+			}
+			String[] sides = name.substring(0, name.length()-3).split("v");
+			int[] white = parse(sides[0]);
+			int[] black = parse(sides[1]);
+			try(FileChannel ch = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+				tb.tables[key(code(white, white.length), code(black, black.length))] =
+					ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+			}
+			tb.maxPieces = Math.max(tb.maxPieces, 2+white.length+black.length);
+		}
+		return tb;
+	}
+
+	private static int[] parse(String side) {
+		int[] types = new int[side.length()-1];
+		for(int i = 1; i < side.length(); i++) {
+			types[i-1] = new String(LETTERS).indexOf(side.charAt(i));
+		}
+		return types;
+	}
+
+	//Working space for probe() and lookup(), so that probing from the
+	//search does not allocate.  Each State has its own.
+	static class Scratch {
+		final int[] types = new int[MAX_PIECES];
+		final boolean[] white = new boolean[MAX_PIECES];
+		final int[] squares = new int[MAX_PIECES];
+		final int[] wt = new int[2];
+		final int[] ws = new int[2];
+		final int[] bt = new int[2];
+		final int[] bs = new int[2];
+	}
+
+	//Look up a position given as parallel lists of piece types, colours
+	//and squares, or NONE if there is no table for it
+	int lookup(Scratch x, int[] types, boolean[] white, int[] squares, int n, boolean whiteToMove) {
+		int[] wt = x.wt;
+		int[] ws = x.ws;
+		int[] bt = x.bt;
+		int[] bs = x.bs;
+		int wn = 0;
+		int bn = 0;
+		int wk = -1;
+		int bk = -1;
+		for(int i = 0; i < n; i++) {
+			if(types[i] == State.KING) {
+				if(white[i]) {
+					wk = squares[i];
+				}
+				else {
+					bk = squares[i];
+				}
+			}
+			else if(white[i]) {
+				if(wn == 2) {
+					return NONE;
+				}
+				wt[wn] = types[i];
+				ws[wn++] = squares[i];
+			}
+			else {
+				if(bn == 2) {
+					return NONE;
+				}
+				bt[bn] = types[i];
+				bs[bn++] = squares[i];
+			}
+		}
+		if( (wk == -1) || (bk == -1) ) {
+			return NONE;
+		}
+		sort(wt, ws, wn);
+		sort(bt, bs, bn);
+
+		int wc = code(wt, wn);
+		int bc = code(bt, bn);
+		int index;
+		ByteBuffer table;
+		if(canonical(wn, wc, bn, bc)) {
+			table = tables[key(wc, bc)];
+			index = (wk*30)+bk;
+			for(int i = 0; i < wn; i++) {
+				index = (index*30)+ws[i];
+			}
+			for(int i = 0; i < bn; i++) {
+				index = (index*30)+bs[i];
+			}
+			index = (index*2)+(whiteToMove ? 0 : 1);
+		}
+		else {
+			//Turn the board round: black becomes white
+			table = tables[key(bc, wc)];
+			index = (mirror(bk)*30)+mirror(wk);
+			for(int i = 0; i < bn; i++) {
+				index = (index*30)+mirror(bs[i]);
+			}
+			for(int i = 0; i < wn; i++) {
+				index = (index*30)+mirror(ws[i]);
+			}
+			index = (index*2)+(whiteToMove ? 1 : 0);
+		}
+		if(table == null) {
+			return NONE;
+		}
+		return table.get(index);
+	}
+
+	private static void sort(int[] types, int[] squares, int n) {
+		if( (n == 2) && (types[0] > types[1]) ) {
+			int t = types[0];
+			types[0] = types[1];
+			types[1] = t;
+			t = squares[0];
+			squares[0] = squares[1];
+			squares[1] = t;
+		}
+	}
+
+	//The value of s for the side to move, or NONE
+	int probe(State s) {
+		int n = Integer.bitCount(s.allMask);
+		if(n > maxPieces) {
+			return NONE;
+		}
+		Scratch x = s.tbScratch;
+		int[] types = x.types;
+		boolean[] white = x.white;
+		int[] squares = x.squares;
+		int i = 0;
+		for(int occ = s.allMask; occ != 0; occ &= occ-1) {
+			int sq = Integer.numberOfTrailingZeros(occ);
+			int slot = s.squares[sq];
+			types[i] = State.typeOf[slot];
+			white[i] = slot < State.BKING;
+			squares[i++] = sq;
+		}
+		return lookup(x, types, white, squares, n, s.turn);
+	}
+
+	//The move at the root of s that keeps the best tablebase result: the
+	//fastest win, else a draw, else the slowest loss.  0 if s is not in
+	//the tables.  Overwrites the root move list.
+	int bestMove(State s) throws Exception {
+		if(probe(s) == NONE) {
+			return 0;
+		}
+		int[] list = s.moveStack[0];
+		int n = s.moveGen(list);
+		int best = 0;
+		int bestRank = Integer.MIN_VALUE;
+		for(int i = 0; i < n; i++) {
+			int rank;
+			int captured = Move.captured(list[i]);
+			if( (captured != -1) && (State.typeOf[captured] == State.KING) ) {
+				rank = 1000;
+			}
+			else {
+				s.processMove(list[i]);
+				int v = probe(s);
+				s.undoLastMove();
+				if(v == NONE) {
+					return 0;
+				}
+				//The reply's value is the opponent's: a loss for them in
+				//fewer plies is better for us
+				if(v < 0) {
+					rank = 1000+v;
+				}
+				else if(v == 0) {
+					rank = 0;
+				}
+				else {
+					rank = -1000+v;
+				}
+			}
+			if(rank > bestRank) {
+				bestRank = rank;
+				best = list[i];
+			}
+		}
+		return best;
+	}
+
+	public static void main(String args[]) throws Exception {
+		if(args.length < 1) {
+			System.out.println("usage: Tablebase <dir> [-pieces <n>] [-threads <n>]");
+			return;
+		}
+		int pieces = MAX_PIECES;
+		int threads = Runtime.getRuntime().availableProcessors();
+		for(int i = 1; i+1 < args.length; i += 2) {
+			if(args[i].equals("-pieces")) {
+				pieces = Math.min(Integer.parseInt(args[i+1]), MAX_PIECES);
+			}
+			else if(args[i].equals("-threads")) {
+				threads = Integer.parseInt(args[i+1]);
+			}
+		}
+		new File(args[0]).mkdirs();
+
+		//Every stored material, in an order where captures and promotions
+		//only lead to materials solved before
+		List<int[][]> materials = new ArrayList<int[][]>();
+		int[][] sets = { {}, {1}, {2}, {3}, {4}, {5},
+			{1,1}, {1,2}, {1,3}, {1,4}, {1,5}, {2,2}, {2,3}, {2,4}, {2,5},
+			{3,3}, {3,4}, {3,5}, {4,4}, {4,5}, {5,5} };
+		for(int[] w : sets) {
+			for(int[] b : sets) {
+				if( (2+w.length+b.length <= pieces) &&
+					canonical(w.length, code(w, w.length), b.length, code(b, b.length)) ) {
+					materials.add(new int[][] { w, b });
+				}
+			}
+		}
+		Collections.sort(materials, new Comparator<int[][]>() {
+			public int compare(int[][] x, int[][] y) {
+				int c = (x[0].length+x[1].length)-(y[0].length+y[1].length);
+				return (c != 0) ? c : pawns(x)-pawns(y);
+			}
+		});
+
+		Tablebase tb = new Tablebase();
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		for(int[][] m : materials) {
+			long start = System.currentTimeMillis();
+			Solver solver = new Solver(tb, m[0], m[1]);
+			int longest = solver.solve(pool);
+			tb.tables[key(code(m[0], m[0].length), code(m[1], m[1].length))] = ByteBuffer.wrap(solver.table);
+			tb.maxPieces = Math.max(tb.maxPieces, solver.n);
+
+			String name = name(m[0], m[0].length, m[1], m[1].length);
+			Files.write(Paths.get(args[0], name+".tb"), solver.table);
+			System.out.println(name+": longest win "+longest+" plies, "+
+				(System.currentTimeMillis()-start)+" ms");
+		}
+		pool.shutdown();
+	}
+
+	static int pawns(int[][] m) {
+		int p = 0;
+		for(int[] side : m) {
+			for(int t : side) {
+				if(t == State.PAWN) {
+					p++;
+				}
+			}
+		}
+		return p;
+	}
+}
+
+//Retrograde analysis of one material.  Rather than generating moves
+//backwards, every pass goes forward over the positions not solved yet:
+//pass n finds the wins in n plies (a move to a loss in n-1) when n is odd,
+//and the losses in n plies (every move leads to a win for the opponent)
+//when n is even.  Captures and promotions lead into tables solved
+//before.  Whatever is left when two passes in a row find nothing is a
+//draw.
+class Solver {
+
+	final Tablebase tb;
+	final int n;
+	final int[] types;
+	final boolean[] white;
+	final int[] mul;
+	final byte[] table;
+
+	Solver(Tablebase t, int[] w, int[] b) {
+		tb = t;
+		n = 2+w.length+b.length;
+		types = new int[n];
+		white = new boolean[n];
+		mul = new int[n];
+		types[0] = State.KING;
+		white[0] = true;
+		types[1] = State.KING;
+		int i = 2;
+		for(int x : w) {
+			types[i] = x;
+			white[i++] = true;
+		}
+		for(int x : b) {
+			types[i++] = x;
+		}
+		int size = 2;
+		for(int j = n-1; j >= 0; j--) {
+			mul[j] = size;
+			size *= State.maxSquares;
+		}
+		table = new byte[size];
+	}
+
+	//Solve the table, returning the longest win found
+	int solve(ForkJoinPool pool) throws Exception {
+		final int chunks = 256;
+		final int chunk = (table.length+chunks-1)/chunks;
+		int quiet = 0;
+		int longest = 0;
+		for(int pass = 1; (pass < 127) && (quiet < 2); pass++) {
+			final int p = pass;
+			final AtomicLong found = new AtomicLong();
+			List<Future<?>> tasks = new ArrayList<Future<?>>();
+			for(int c = 0; c < chunks; c++) {
+				final int from = c*chunk;
+				final int to = Math.min(from+chunk, table.length);
+				tasks.add(pool.submit(new Runnable() {
+					public void run() {
+						found.addAndGet(pass(p, from, to));
+					}
+				}));
+			}
+			for(Future<?> f : tasks) {
+				f.get();
+			}
+			if(found.get() == 0) {
+				quiet++;
+			}
+			else {
+				quiet = 0;
+				if((pass & 1) == 1) {
+					longest = pass;
+				}
+			}
+		}
+		return longest;
+	}
+
+	//Solve what can be solved in this pass among positions [from, to)
+	long pass(int pass, int from, int to) {
+		int[] sq = new int[n];
+		int[] childTypes = new int[n];
+		boolean[] childWhite = new boolean[n];
+		int[] childSquares = new int[n];
+		Tablebase.Scratch scratch = new Tablebase.Scratch();
+		long found = 0;
+
+		for(int index = from; index < to; index++) {
+			if(table[index] != 0) {
+				continue;
+			}
+
+			//Decode, skipping impossible placements
+			int rest = index >>> 1;
+			boolean whiteToMove = (index & 1) == 0;
+			int occ = 0;
+			boolean valid = true;
+			for(int i = n-1; i >= 0; i--) {
+				sq[i] = rest % 30;
+				rest /= 30;
+				int bit = 1 << sq[i];
+				if((occ & bit) != 0) {
+					valid = false;
+				}
+				occ |= bit;
+				if(types[i] == State.PAWN) {
+					if( (white[i] && (sq[i] >= 25)) || (!white[i] && (sq[i] < 5)) ) {
+						valid = false;
+					}
+				}
+			}
+			if(!valid) {
+				continue;
+			}
+			int own = 0;
+			for(int i = 0; i < n; i++) {
+				if(white[i] == whiteToMove) {
+					own |= 1 << sq[i];
+				}
+			}
+			int enemy = occ & ~own;
+
+			//Pass 1 only looks for a king that can be taken
+			if(pass == 1) {
+				int king = 1 << sq[whiteToMove ? 1 : 0];
+				for(int i = 0; (i < n) && (table[index] == 0); i++) {
+					if( (white[i] == whiteToMove) && ((targets(i, sq[i], occ, own, whiteToMove) & king) != 0) ) {
+						table[index] = 1;
+						found++;
+					}
+				}
+				continue;
+			}
+
+			boolean win = false;
+			boolean allLose = true;
+			int moves = 0;
+			for(int i = 0; (i < n) && !win && (allLose || ((pass & 1) == 1)); i++) {
+				if(white[i] != whiteToMove) {
+					continue;
+				}
+				int t = targets(i, sq[i], occ, own, whiteToMove);
+				for(; t != 0; t &= t-1) {
+					int target = Integer.numberOfTrailingZeros(t);
+					moves++;
+					int v;
+					boolean promotes = (types[i] == State.PAWN) && ((target < 5) || (target >= 25));
+					if( ((enemy & (1 << target)) == 0) && !promotes ) {
+						v = table[(index+((target-sq[i])*mul[i])) ^ 1];
+					}
+					else {
+						int k = 0;
+						for(int j = 0; j < n; j++) {
+							if( (j != i) && (sq[j] == target) ) {
+								continue;
+							}
+							childTypes[k] = (j == i) && promotes ? State.QUEEN : types[j];
+							childWhite[k] = white[j];
+							childSquares[k++] = (j == i) ? target : sq[j];
+						}
+						v = tb.lookup(scratch, childTypes, childWhite, childSquares, k, !whiteToMove);
+					}
+					if(v == -(pass-1)) {
+						win = true;
+						break;
+					}
+					//Tables solved before hold wins of any length, and this
+					//one only counts as lost once the longest has been reached
+					if( (v <= 0) || (v >= pass) ) {
+						allLose = false;
+					}
+				}
+			}
+
+			if( ((pass & 1) == 1) && win ) {
+				table[index] = (byte)pass;
+				found++;
+			}
+			else if( ((pass & 1) == 0) && allLose && (moves > 0) ) {
+				table[index] = (byte)-pass;
+				found++;
+			}
+		}
+		return found;
+	}
+
+	//Squares piece i on sq can move to
+	int targets(int i, int sq, int occ, int own, boolean whiteToMove) {
+		switch(types[i]) {
+			case State.PAWN: {
+				int side = whiteToMove ? 0 : 1;
+				return (State.pawnPushes[side][sq] & ~occ) | (State.pawnCaptures[side][sq] & occ & ~own);
+			}
+			case State.KING:
+				return State.kingAttacks[sq] & ~own;
+			case State.KNIGHT:
+				return State.knightAttacks[sq] & ~own;
+			case State.ROOK:
+				return State.rookAttacks(sq, occ) & ~own;
+			case State.BISHOP:
+				return State.bishopAttacks(sq, occ) & ~own;
+			default:
+				return (State.rookAttacks(sq, occ) | State.bishopAttacks(sq, occ)) & ~own;
+		}
+	}
+}
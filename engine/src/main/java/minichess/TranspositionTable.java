@@ -0,0 +1,195 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+import java.util.*;
+
+//Fixed size hash table of previously searched positions, keyed by the
+//Zobrist hash kept in State.  Each entry is two longs, the key XORed with
+//the data and the data itself, so a reader can tell a torn write from
+//another thread apart from a real hit without any locking: if the two
+//halves do not belong together the key check simply fails.
+//
+//Entries live in buckets of two.  A store replaces the entry for the same
+//position if there is one, otherwise an empty entry, otherwise the entry
+//left over from the oldest search, and among equals the shallowest one.
+//
+//The table is only allocated by the first store, so States that never
+//search, like those of perft or a position decoder, cost nothing.
+class TranspositionTable {
+
+	static final int DEFAULT_MB = 16;
+
+	//Bound types.  None of them are 0, so a stored data word never is.
+	static final int UPPER = 1;
+	static final int LOWER = 2;
+	static final int EXACT = 3;
+
+	//Layout of a data word:
+	//  bits  0-31  score, as float bits
+	//  bits 32-52  packed move (see Move)
+	//  bits 53-58  depth
+	//  bits 59-60  bound
+	//  bits 61-63  age of the search that stored it
+	static final int MOVE_SHIFT = 32;
+	static final int DEPTH_SHIFT = 53;
+	static final int BOUND_SHIFT = 59;
+	static final int AGE_SHIFT = 61;
+	static final int MAX_DEPTH = 63;
+
+	static final int BUCKET = 2;
+
+	//null until the first store.  A thread that has not seen it set yet
+	//just misses on probe, and finds it in allocate() on store.
+	long[] table;
+	long entries;
+	int mask;
+	int age = 0;
+
+	TranspositionTable(int mb) {
+		resize(mb);
+	}
+
+	//Throw the table away; the next store allocates one of (at most) the
+	//given size.  The entry count is rounded down to a power of two.
+	public void resize(int mb) {
+		long n = Math.max(((long)mb*1024*1024)/16, BUCKET);
+		entries = Math.min(Long.highestOneBit(n), 1 << 29);
+		mask = (int)(entries/BUCKET)-1;
+		table = null;
+		age = 0;
+	}
+
+	//Threads sharing the table may all find it missing: only one of them
+	//allocates it
+	private synchronized long[] allocate() {
+		if(table != null) {
+			return table;
+		}
+		HashResizeEvent event = new HashResizeEvent();
+		event.begin();
+
+		long[] t = new long[(int)entries*2];
+		table = t;
+
+		if(event.shouldCommit()) {
+			event.bytes = entries*16;
+			event.entries = entries;
+			event.commit();
+		}
+		return t;
+	}
+
+	public void clear() {
+		long[] t = table;
+		if(t != null) {
+			Arrays.fill(t, 0);
+		}
+		age = 0;
+	}
+
+	//Called once per root search so older entries can be told apart
+	public void newSearch() {
+		age = (age+1) & 7;
+	}
+
+	//Return the data word stored for this position, or 0 if there is none
+	public long probe(long key) {
+		long[] table = this.table;
+		if(table == null) {
+			return 0;
+		}
+		int i = bucketOf(key);
+		for(int e = 0; e < BUCKET; e++, i += 2) {
+			long data = table[i+1];
+			if( (data != 0) && ((table[i] ^ data) == key) ) {
+				return data;
+			}
+		}
+		return 0;
+	}
+
+	public void store(long key, int move, float score, int depth, int bound) {
+		long[] table = this.table;
+		if(table == null) {
+			table = allocate();
+		}
+		int first = bucketOf(key);
+		int replace = first;
+		int replaceAge = -1;
+		int replaceDepth = Integer.MAX_VALUE;
+
+		for(int e = 0, i = first; e < BUCKET; e++, i += 2) {
+			long old = table[i+1];
+
+			//Same position, or a free entry: take it straight away
+			if( (old == 0) || ((table[i] ^ old) == key) ) {
+				//Keep the old move when the new search did not find one
+				if( (move == 0) && (old != 0) ) {
+					move = move(old);
+				}
+				replace = i;
+				break;
+			}
+
+			//Otherwise prefer the entry from the oldest search, then the shallowest
+			int oldAge = (age-age(old)) & 7;
+			if( (oldAge > replaceAge) ||
+				((oldAge == replaceAge) && (depth(old) < replaceDepth)) ) {
+				replace = i;
+				replaceAge = oldAge;
+				replaceDepth = depth(old);
+			}
+		}
+
+		long data = (Float.floatToRawIntBits(score) & 0xFFFFFFFFL) |
+					((long)move << MOVE_SHIFT) |
+					((long)Math.min(depth, MAX_DEPTH) << DEPTH_SHIFT) |
+					((long)bound << BOUND_SHIFT) |
+					((long)age << AGE_SHIFT);
+		table[replace] = key ^ data;
+		table[replace+1] = data;
+	}
+
+	private int bucketOf(long key) {
+		return ((int)(key ^ (key >>> 32)) & mask) * BUCKET * 2;
+	}
+
+	static float score(long data) {
+		return Float.intBitsToFloat((int)data);
+	}
+
+	static int move(long data) {
+		return (int)(data >>> MOVE_SHIFT) & 0x1FFFFF;
+	}
+
+	static int depth(long data) {
+		return (int)(data >>> DEPTH_SHIFT) & MAX_DEPTH;
+	}
+
+	static int bound(long data) {
+		return (int)(data >>> BOUND_SHIFT) & 3;
+	}
+
+	static int age(long data) {
+		return (int)(data >>> AGE_SHIFT) & 7;
+	}
+
+}
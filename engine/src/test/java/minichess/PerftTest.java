@@ -0,0 +1,66 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+//Leaf counts from the starting position, as counted by the original move
+//generator.  A change to moveGen(), processMove() or undoLastMove() that
+//alters them is a bug.
+class PerftTest {
+
+	static final long[] COUNTS = { 1, 7, 49, 452, 4230, 47102, 532718 };
+
+	@Test
+	void startPosition() throws Exception {
+		State s = new State();
+		for(int depth = 1; depth < COUNTS.length; depth++) {
+			assertEquals(COUNTS[depth], Perft.perft(s, depth, 0, null), "depth "+depth);
+		}
+	}
+
+	@Test
+	void undoRestoresPosition() throws Exception {
+		State s = new State();
+		String before = Position.toText(s);
+		long hash = s.hash;
+		Perft.perft(s, 5, 0, null);
+		assertEquals(before, Position.toText(s));
+		assertEquals(hash, s.hash);
+	}
+
+	@Test
+	void hashedAndThreadedAgree() throws Exception {
+		int depth = COUNTS.length-1;
+		assertEquals(COUNTS[depth], total(Perft.divide(new State(), depth, new Perft.Table(16), 1)));
+		assertEquals(COUNTS[depth], total(Perft.divide(new State(), depth, null, 4)));
+		assertEquals(COUNTS[depth], total(Perft.divide(new State(), depth, new Perft.Table(16), 4)));
+	}
+
+	static long total(long[] counts) {
+		long total = 0;
+		for(long c : counts) {
+			total += c;
+		}
+		return total;
+	}
+}
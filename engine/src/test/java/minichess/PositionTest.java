@@ -0,0 +1,129 @@
+/*
+ * JavaMiniChess (C)2007 Tim Hamilton
+ * ALL RIGHTS RESERVED
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package minichess;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.*;
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+//The text and binary forms of Position must give back the position they
+//were made from, hash included, and a bad position must leave the State
+//as it was.
+class PositionTest {
+
+	static final String START = "kqbnr/ppppp/5/5/PPPPP/RNBQK w 0";
+
+	@Test
+	void startPosition() throws Exception {
+		State s = new State();
+		assertEquals(START, Position.toText(s));
+
+		State t = new State();
+		Position.fromText(t, START);
+		assertSamePosition(s, t);
+	}
+
+	//Positions from random games, with the side to move, move counter,
+	//promotions and captured kings all varied
+	@Test
+	void roundTrip() throws Exception {
+		Random random = new Random(1);
+		State t = new State();
+		ByteBuffer buffer = ByteBuffer.allocate(Position.BYTES);
+		for(int game = 0; game < 200; game++) {
+			State s = new State();
+			int[] moves = s.moveStack[0];
+			for(int ply = 0; ply < 80; ply++) {
+				String text = Position.toText(s);
+				Position.fromText(t, text);
+				assertSamePosition(s, t);
+				assertEquals(text, Position.toText(t));
+
+				buffer.clear();
+				Position.encode(s, buffer);
+				assertEquals(Position.BYTES, buffer.position());
+				buffer.flip();
+				Position.decode(t, buffer);
+				assertSamePosition(s, t);
+
+				if(Perft.gameOver(s)) {
+					break;
+				}
+				int n = s.moveGen(moves);
+				if(n == 0) {
+					break;
+				}
+				s.processMove(moves[random.nextInt(n)]);
+			}
+		}
+	}
+
+	@Test
+	void badPositionLeavesStateAlone() throws Exception {
+		String[] bad = {
+			"kk3/5/5/5/5/K4 w 0",
+			"kqbnr/ppppp/5/5/PPPPP w 0",
+			"kqbnr/ppppp/6/5/PPPPP/RNBQK w 0",
+			"kqbnr/ppxpp/5/5/PPPPP/RNBQK w 0",
+			"kqbnr/ppppp/5/5/PPPPP/RNBQK w x",
+			"kqbnr/ppppp/5/5/PPPPP/RNBQK x 0",
+			"kqbnr/ppppp/5/5/PPPPP/RNBQK white 0",
+			"kqbnr/ppppp/5/5/PPPPP/RNBQK w -1",
+			"kqbnr/ppppp/5/5/PPPPP/RNBQK w 128"
+		};
+		State s = new State();
+		Position.fromText(s, "k4/p4/5/5/4P/4K b 7");
+		int[] pieces = s.pieces.clone();
+		long hash = s.hash;
+		for(String text : bad) {
+			assertThrows(Exception.class, () -> Position.fromText(s, text), text);
+			assertEquals("k4/p4/5/5/4P/4K b 7", Position.toText(s));
+			assertArrayEquals(pieces, s.pieces);
+			assertEquals(hash, s.hash);
+		}
+	}
+
+	@Test
+	void moveCounterRange() throws Exception {
+		State s = new State();
+		Position.fromText(s, "kqbnr/ppppp/5/5/PPPPP/RNBQK b "+Position.MAX_MOVECOUNTER);
+		ByteBuffer buffer = ByteBuffer.allocate(Position.BYTES);
+		Position.encode(s, buffer);
+		buffer.flip();
+		State t = new State();
+		Position.decode(t, buffer);
+		assertSamePosition(s, t);
+
+		s.movecounter = Position.MAX_MOVECOUNTER+1;
+		buffer.clear();
+		assertThrows(Exception.class, () -> Position.encode(s, buffer));
+	}
+
+	static void assertSamePosition(State expected, State actual) {
+		assertArrayEquals(Position.codes(expected), Position.codes(actual));
+		assertEquals(expected.turn, actual.turn);
+		assertEquals(expected.movecounter, actual.movecounter);
+		assertEquals(expected.hash, actual.hash);
+		assertEquals(expected.evalScore, actual.evalScore);
+	}
+}